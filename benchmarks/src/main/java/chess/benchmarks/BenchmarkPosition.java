@@ -0,0 +1,36 @@
+package chess.benchmarks;
+
+import chess.ChessGame;
+
+/**
+ * Positions the benchmarks run over, one per phase of the game so that results are
+ * not skewed toward the crowded starting board
+ */
+public enum BenchmarkPosition {
+    /** After 1. e4 e5 2. Nf3 Nc6: most pieces still home and blocked in */
+    OPENING("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3"),
+    /** "Kiwipete": open lines, pins, and both sides able to castle */
+    MIDDLEGAME("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"),
+    /** Rook and pawns, where long slider rays dominate */
+    ENDGAME("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+
+    private final String fen;
+
+    BenchmarkPosition(String fen) {
+        this.fen = fen;
+    }
+
+    /**
+     * @return a new game set up at this position
+     */
+    public ChessGame newGame() {
+        return ChessGame.fromFen(fen);
+    }
+
+    /**
+     * @return this position in Forsyth-Edwards Notation
+     */
+    public String fen() {
+        return fen;
+    }
+}
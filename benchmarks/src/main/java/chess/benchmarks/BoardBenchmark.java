@@ -0,0 +1,47 @@
+package chess.benchmarks;
+
+import chess.ChessBoard;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link ChessBoard} operations that move generation and hashed
+ * collections lean on. {@code equals} compares two distinct but equal boards, the
+ * case where no shortcut applies.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Param
+    public BenchmarkPosition position;
+
+    private ChessBoard board;
+    private ChessBoard sameBoard;
+
+    @Setup
+    public void setUp() {
+        board = position.newGame().getBoard();
+        sameBoard = position.newGame().getBoard();
+    }
+
+    @Benchmark
+    public ChessBoard copy() {
+        return board.copy();
+    }
+
+    @Benchmark
+    public boolean equalBoards() {
+        return board.equals(sameBoard);
+    }
+
+    @Benchmark
+    public int hashCodeOfBoard() {
+        return board.hashCode();
+    }
+}
@@ -0,0 +1,41 @@
+package chess.benchmarks;
+
+import chess.ChessGame;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading and writing whole games as FEN. Throughput mode reports positions
+ * per second directly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FenBenchmark {
+
+    @Param
+    public BenchmarkPosition position;
+
+    private String fen;
+    private ChessGame game;
+
+    @Setup
+    public void setUp() {
+        fen = position.fen();
+        game = position.newGame();
+    }
+
+    @Benchmark
+    public ChessGame parse() {
+        return ChessGame.fromFen(fen);
+    }
+
+    @Benchmark
+    public String format() {
+        return game.toFen();
+    }
+}
@@ -0,0 +1,118 @@
+package chess.benchmarks;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.LegalMoveMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link ChessGame} rule checks. {@code validMoves} is called for every
+ * piece of the side to move, which is what a client does to highlight a whole board.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    @Param
+    public BenchmarkPosition position;
+
+    private ChessGame game;
+    private ChessPosition[] ownPieces;
+    private ChessMove[] legalMoves;
+    private int nextMove;
+
+    @Setup
+    public void setUp() {
+        game = position.newGame();
+        List<ChessPosition> found = new ArrayList<>();
+        List<ChessMove> moves = new ArrayList<>();
+        game.getBoard().forEachPiece(game.getTeamTurn(), (square, piece) -> {
+            found.add(square);
+            moves.addAll(game.validMoves(square));
+        });
+        ownPieces = found.toArray(new ChessPosition[0]);
+        legalMoves = moves.toArray(new ChessMove[0]);
+    }
+
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (ChessPosition square : ownPieces) {
+            blackhole.consume(game.validMoves(square));
+        }
+    }
+
+    @Benchmark
+    public LegalMoveMap allValidMoves() {
+        return game.allValidMoves();
+    }
+
+    /**
+     * A game freshly set up before every call, so its status has not been worked out
+     * yet and the status benchmarks below measure the check itself. Setup time is not
+     * measured, though timing single calls adds some fixed overhead of its own.
+     */
+    @State(Scope.Thread)
+    public static class FreshGame {
+        ChessGame game;
+
+        @Setup(Level.Invocation)
+        public void setUp(GameBenchmark benchmark) {
+            game = benchmark.position.newGame();
+        }
+    }
+
+    @Benchmark
+    public boolean isInCheck(FreshGame fresh) {
+        return fresh.game.isInCheck(fresh.game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInCheckmate(FreshGame fresh) {
+        return fresh.game.isInCheckmate(fresh.game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInStalemate(FreshGame fresh) {
+        return fresh.game.isInStalemate(fresh.game.getTeamTurn());
+    }
+
+    /** Repeats the status query on one game, so every call after the first is a cache hit */
+    @Benchmark
+    public boolean isInCheckmateCached() {
+        return game.isInCheckmate(game.getTeamTurn());
+    }
+
+    /**
+     * Plays each legal move of the position in turn. The game is rebuilt before every
+     * call, outside the measurement, since a move cannot be taken back through the
+     * public API.
+     */
+    @State(Scope.Thread)
+    public static class MoveState {
+        ChessGame game;
+        ChessMove move;
+
+        @Setup(Level.Invocation)
+        public void setUp(GameBenchmark benchmark) {
+            game = benchmark.position.newGame();
+            move = benchmark.legalMoves[benchmark.nextMove++ % benchmark.legalMoves.length];
+        }
+    }
+
+    @Benchmark
+    public ChessGame makeMove(MoveState state) throws InvalidMoveException {
+        state.game.makeMove(state.move);
+        return state.game;
+    }
+}
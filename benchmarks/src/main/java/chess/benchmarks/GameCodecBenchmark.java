@@ -0,0 +1,45 @@
+package chess.benchmarks;
+
+import chess.ChessGame;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading and writing whole games in the fixed-size binary encoding, for
+ * comparison with {@link FenBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameCodecBenchmark {
+
+    @Param
+    public BenchmarkPosition position;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(ChessGame.ENCODED_SIZE);
+    private ChessGame game;
+
+    @Setup
+    public void setUp() {
+        game = position.newGame();
+        game.writeTo(buffer);
+    }
+
+    @Benchmark
+    public ChessGame read() {
+        buffer.rewind();
+        return ChessGame.readFrom(buffer);
+    }
+
+    @Benchmark
+    public ByteBuffer write() {
+        buffer.clear();
+        game.writeTo(buffer);
+        return buffer;
+    }
+}
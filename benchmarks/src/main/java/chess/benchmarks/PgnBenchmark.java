@@ -0,0 +1,86 @@
+package chess.benchmarks;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.PgnGame;
+import chess.PgnReader;
+import chess.PgnWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures PGN reading and writing in games per second, over a collection of random
+ * games of up to 120 plies held in memory so that disk speed does not count
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(PgnBenchmark.GAMES)
+public class PgnBenchmark {
+
+    static final int GAMES = 1_000;
+
+    private final List<PgnGame> games = new ArrayList<>();
+    private byte[] pgn;
+
+    @Setup
+    public void setUp() throws IOException, InvalidMoveException {
+        Random random = new Random(42);
+        for (int i = 0; i < GAMES; i++) {
+            ChessGame game = new ChessGame();
+            List<ChessMove> moves = new ArrayList<>();
+            for (int ply = 0; ply < 120; ply++) {
+                List<ChessMove> legal = game.legalMoves().toList();
+                if (legal.isEmpty()) {
+                    break;
+                }
+                ChessMove move = legal.get(random.nextInt(legal.size()));
+                game.makeMove(move);
+                moves.add(move);
+            }
+            games.add(new PgnGame(Map.of("Event", "Benchmark " + i), new ChessGame(), moves, "*"));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PgnWriter writer = new PgnWriter(Channels.newChannel(out))) {
+            for (PgnGame game : games) {
+                writer.write(game);
+            }
+        }
+        pgn = out.toByteArray();
+    }
+
+    @Benchmark
+    public int read() throws IOException {
+        int count = 0;
+        try (PgnReader reader = new PgnReader(Channels.newChannel(new ByteArrayInputStream(pgn)))) {
+            while (reader.next() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public void write() throws IOException, InvalidMoveException {
+        try (PgnWriter writer = new PgnWriter(Channels.newChannel(OutputStream.nullOutputStream()))) {
+            for (PgnGame game : games) {
+                writer.write(game);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package chess.benchmarks;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ChessPiece#pieceMoves(ChessBoard, ChessPosition)} for every piece of
+ * one type belonging to the side to move. Each operation covers all such pieces, so
+ * compare scores across positions only for the same piece type.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceMovesBenchmark {
+
+    @Param
+    public BenchmarkPosition position;
+
+    @Param
+    public ChessPiece.PieceType pieceType;
+
+    private ChessBoard board;
+    private ChessPiece[] pieces;
+    private ChessPosition[] squares;
+
+    @Setup
+    public void setUp() {
+        ChessGame game = position.newGame();
+        board = game.getBoard();
+        List<ChessPosition> found = new ArrayList<>();
+        board.forEachPiece(game.getTeamTurn(), (square, piece) -> {
+            if (piece.getPieceType() == pieceType) {
+                found.add(square);
+            }
+        });
+        squares = found.toArray(new ChessPosition[0]);
+        pieces = new ChessPiece[squares.length];
+        for (int i = 0; i < squares.length; i++) {
+            pieces[i] = board.getPiece(squares[i]);
+        }
+    }
+
+    @Benchmark
+    public void pieceMoves(Blackhole blackhole) {
+        for (int i = 0; i < squares.length; i++) {
+            blackhole.consume(pieces[i].pieceMoves(board, squares[i]));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package chess;
+
+/**
+ * Per-team attacker counts for every square, kept current as pieces come and go.
+ * <p>
+ * Placing or lifting a piece changes the piece's own attacks and the attacks of any
+ * rook, bishop or queen whose ray runs through that square, which now stops there or
+ * now continues past it. Only those pieces are recomputed, and only the squares whose
+ * attacked status changed are touched. Every other attack on the board is unaffected.
+ */
+final class AttackMap {
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private final byte[][] counts = new byte[2][64];
+    private final long[] attacked = new long[2];
+
+    /** Builds the map for the board from scratch */
+    AttackMap(ChessBoard board) {
+        long occupied = board.getOccupancy();
+        for (int square = 0; square < 64; square++) {
+            int index = board.pieceIndexAt(square);
+            if (index >= 0) {
+                change(index / 6, attacks(index, square, occupied), 1);
+            }
+        }
+    }
+
+    private AttackMap(AttackMap other) {
+        for (int color = 0; color < 2; color++) {
+            System.arraycopy(other.counts[color], 0, counts[color], 0, 64);
+        }
+        System.arraycopy(other.attacked, 0, attacked, 0, 2);
+    }
+
+    AttackMap copy() {
+        return new AttackMap(this);
+    }
+
+    /**
+     * Updates the counts after a piece was placed on or lifted from a square. The board
+     * must already reflect the change, and the square must have been empty before a
+     * placement or after a removal.
+     */
+    void update(ChessBoard board, int square, int index, boolean added) {
+        long after = board.getOccupancy();
+        long before = after ^ 1L << square;
+
+        long rookLike = board.getBitboard(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK)
+                | board.getBitboard(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        long bishopLike = board.getBitboard(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP)
+                | board.getBitboard(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
+        long queens = board.getBitboard(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN)
+                | board.getBitboard(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
+        long sliders = (AttackTables.rookAttacks(square, after) & (rookLike | queens))
+                | (AttackTables.bishopAttacks(square, after) & (bishopLike | queens));
+        while (sliders != 0) {
+            int slider = Long.numberOfTrailingZeros(sliders);
+            sliders &= sliders - 1;
+            int sliderIndex = board.pieceIndexAt(slider);
+            long old = attacks(sliderIndex, slider, before);
+            long now = attacks(sliderIndex, slider, after);
+            change(sliderIndex / 6, old & ~now, -1);
+            change(sliderIndex / 6, now & ~old, 1);
+        }
+
+        if (added) {
+            change(index / 6, attacks(index, square, after), 1);
+        } else {
+            change(index / 6, attacks(index, square, before), -1);
+        }
+    }
+
+    boolean isAttacked(int square, ChessGame.TeamColor byColor) {
+        return (attacked[byColor.ordinal()] & 1L << square) != 0;
+    }
+
+    int attackerCount(int square, ChessGame.TeamColor byColor) {
+        return counts[byColor.ordinal()][square];
+    }
+
+    long attackedSquares(ChessGame.TeamColor byColor) {
+        return attacked[byColor.ordinal()];
+    }
+
+    private void change(int color, long squares, int delta) {
+        byte[] colorCounts = counts[color];
+        while (squares != 0) {
+            int square = Long.numberOfTrailingZeros(squares);
+            squares &= squares - 1;
+            colorCounts[square] += delta;
+            if (colorCounts[square] == 0) {
+                attacked[color] &= ~(1L << square);
+            } else {
+                attacked[color] |= 1L << square;
+            }
+        }
+    }
+
+    /** Squares attacked by the piece with the given bitboard index standing on square */
+    private static long attacks(int index, int square, long occupied) {
+        return switch (TYPES[index % 6]) {
+            case KING -> AttackTables.KING[square];
+            case QUEEN -> AttackTables.queenAttacks(square, occupied);
+            case BISHOP -> AttackTables.bishopAttacks(square, occupied);
+            case KNIGHT -> AttackTables.KNIGHT[square];
+            case ROOK -> AttackTables.rookAttacks(square, occupied);
+            case PAWN -> AttackTables.PAWN[index / 6][square];
+        };
+    }
+}
@@ -0,0 +1,206 @@
+package chess;
+
+/**
+ * Precomputed attack sets for every piece type, indexed by 0-63 square.
+ * <p>
+ * Knight, king and pawn attacks are plain lookups. Rook and bishop attacks use magic
+ * bitboards: the blockers on a square's relevant rays are multiplied by a per-square
+ * magic number and shifted down to index a table holding the attack set for that
+ * exact blocker pattern. The magic numbers below came from a seeded random search;
+ * class loading only fills the tables and fails fast if a magic ever collides. The
+ * time spent building everything is kept in {@link #INIT_NANOS}.
+ */
+final class AttackTables {
+
+    /** Squares attacked by a knight on each square */
+    static final long[] KNIGHT = new long[64];
+    /** Squares attacked by a king on each square */
+    static final long[] KING = new long[64];
+    /** Squares attacked by a pawn of each color (by ordinal) on each square */
+    static final long[][] PAWN = new long[2][64];
+
+    /** Squares strictly between two squares on a shared rank, file or diagonal; 0 if not aligned */
+    static final long[][] BETWEEN = new long[64][64];
+    /** The whole rank, file or diagonal through two aligned squares, edge to edge; 0 if not aligned */
+    static final long[][] LINE = new long[64][64];
+
+    private static final long[] ROOK_MASK = new long[64];
+    private static final long[] ROOK_MAGIC = {
+            0x0880004000801022L, 0x4440200440021000L, 0x088008D002200080L, 0x8480041000480080L,
+            0x1080040068008022L, 0x2200010842004410L, 0x1500008409000200L, 0x020000804029040AL,
+            0x4800800040008020L, 0x2082002200410082L, 0x0301001041082000L, 0xC041808008003000L,
+            0x00A4800400800800L, 0x0010800200800400L, 0x0184800100020080L, 0x0040800040802100L,
+            0x4000848004400060L, 0x8684444010002000L, 0x2006820010204200L, 0x0000090021001000L,
+            0x2009010008001004L, 0x900C008004020080L, 0x4108040001100288L, 0x5020220000804114L,
+            0x0080034240002000L, 0x03D0104040002000L, 0x4000100480200480L, 0x0040401200200A00L,
+            0x0008008080040008L, 0x0001000300080400L, 0x4CE1080400421001L, 0x0860804200108124L,
+            0x1000804000800020L, 0x2020100020400040L, 0x4030104202002080L, 0x8048048008801000L,
+            0x40A0040080800802L, 0x0204020080800400L, 0x0500080104000290L, 0xA004012092000044L,
+            0x0002008100420020L, 0x000150002008C000L, 0x090C410020090010L, 0x88422200400A0011L,
+            0x0008002040040400L, 0x0002001004020008L, 0x021600C108020004L, 0x4204410080420004L,
+            0x0040800821004100L, 0x0200842000400480L, 0x0020620140B68200L, 0x80100008E1510100L,
+            0x0080800801040180L, 0x0803000804000300L, 0x0000080162300400L, 0x4002108041040200L,
+            0x8200102040800101L, 0x4602400016210481L, 0x08000A0040102082L, 0x0410210108100005L,
+            0x1011001008000423L, 0x11B1000400020801L, 0x0000012200881004L, 0x000008204401008AL
+    };
+    private static final int[] ROOK_SHIFT = new int[64];
+    private static final int[] ROOK_OFFSET = new int[64];
+    private static final long[] ROOK_TABLE;
+
+    private static final long[] BISHOP_MASK = new long[64];
+    private static final long[] BISHOP_MAGIC = {
+            0x0A4C907009012380L, 0x8020040140410008L, 0x4008160416A03010L, 0x08482140C8000008L,
+            0x1001104080060014L, 0x4001040240080400L, 0x8010880411040000L, 0x0001908228200400L,
+            0x0004600504080C40L, 0x20400208010C1280L, 0x40A0100102202814L, 0x4900044040800003L,
+            0x0143211040010002L, 0x4080008210408180L, 0x00031C2401041002L, 0x2040408410821000L,
+            0x4209481020482082L, 0x1085002004040042L, 0x1029010806440080L, 0x2002021420220000L,
+            0x0041000490400008L, 0x1040210A02100208L, 0x1848430488081840L, 0x20411000618A1020L,
+            0x0444200840C80108L, 0x2010552010010200L, 0x34009000080A4090L, 0x00140800240A0008L,
+            0x5181020004008400L, 0x2480408044100408L, 0x0082021000880100L, 0x0021042001040120L,
+            0x8085442210502000L, 0x11D2482000041900L, 0x4000805000890400L, 0x0200202020080080L,
+            0x000801240108C100L, 0x0C00880081211004L, 0x2A01010A00240211L, 0x262C090200405050L,
+            0x0002092160300809L, 0x0132080404004200L, 0x11000C0044080800L, 0x0410004200840800L,
+            0x0081082104020040L, 0x2002040806000420L, 0x042028050120044CL, 0x0041010222010084L,
+            0x0108412828411400L, 0x0002010401044029L, 0x0009008848084D44L, 0x0000808104091200L,
+            0x1A0100111E120000L, 0x8004900210410003L, 0xA007500401040800L, 0xD030500080809004L,
+            0x000014008210100AL, 0x0000408400880501L, 0x0010001044044400L, 0x00080029A0208800L,
+            0x008C1000C0050102L, 0x0800040604080A04L, 0x0200109001080880L, 0x1808100122082200L
+    };
+    private static final int[] BISHOP_SHIFT = new int[64];
+    private static final int[] BISHOP_OFFSET = new int[64];
+    private static final long[] BISHOP_TABLE;
+
+    private static final int[][] KNIGHT_OFFSETS = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+    private static final int[][] KING_OFFSETS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    /** Nanoseconds spent building all tables during class initialization */
+    static final long INIT_NANOS;
+
+    static {
+        long start = System.nanoTime();
+        for (int square = 0; square < 64; square++) {
+            KNIGHT[square] = stepAttacks(square, KNIGHT_OFFSETS);
+            KING[square] = stepAttacks(square, KING_OFFSETS);
+            PAWN[ChessGame.TeamColor.WHITE.ordinal()][square] = stepAttacks(square, new int[][]{{1, 1}, {1, -1}});
+            PAWN[ChessGame.TeamColor.BLACK.ordinal()][square] = stepAttacks(square, new int[][]{{-1, 1}, {-1, -1}});
+        }
+        ROOK_TABLE = buildTable(ROOK_DIRECTIONS, ROOK_MASK, ROOK_MAGIC, ROOK_SHIFT, ROOK_OFFSET);
+        BISHOP_TABLE = buildTable(BISHOP_DIRECTIONS, BISHOP_MASK, BISHOP_MAGIC, BISHOP_SHIFT, BISHOP_OFFSET);
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                long target = 1L << to;
+                long ends = target | 1L << from;
+                if ((rookAttacks(from, 0L) & target) != 0) {
+                    BETWEEN[from][to] = rookAttacks(from, target) & rookAttacks(to, 1L << from);
+                    LINE[from][to] = (rookAttacks(from, 0L) & rookAttacks(to, 0L)) | ends;
+                } else if ((bishopAttacks(from, 0L) & target) != 0) {
+                    BETWEEN[from][to] = bishopAttacks(from, target) & bishopAttacks(to, 1L << from);
+                    LINE[from][to] = (bishopAttacks(from, 0L) & bishopAttacks(to, 0L)) | ends;
+                }
+            }
+        }
+        INIT_NANOS = System.nanoTime() - start;
+    }
+
+    private AttackTables() {
+    }
+
+    static long rookAttacks(int square, long occupied) {
+        return ROOK_TABLE[ROOK_OFFSET[square]
+                + (int) (((occupied & ROOK_MASK[square]) * ROOK_MAGIC[square]) >>> ROOK_SHIFT[square])];
+    }
+
+    static long bishopAttacks(int square, long occupied) {
+        return BISHOP_TABLE[BISHOP_OFFSET[square]
+                + (int) (((occupied & BISHOP_MASK[square]) * BISHOP_MAGIC[square]) >>> BISHOP_SHIFT[square])];
+    }
+
+    static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /** Walks each ray square by square; used to fill the magic tables and as a reference */
+    static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0L;
+        for (int[] direction : directions) {
+            int row = square / 8 + direction[0];
+            int col = square % 8 + direction[1];
+            while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                long bit = 1L << (row * 8 + col);
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    static long rookAttacksSlow(int square, long occupied) {
+        return slidingAttacks(square, occupied, ROOK_DIRECTIONS);
+    }
+
+    static long bishopAttacksSlow(int square, long occupied) {
+        return slidingAttacks(square, occupied, BISHOP_DIRECTIONS);
+    }
+
+    private static long stepAttacks(int square, int[][] offsets) {
+        long attacks = 0L;
+        for (int[] offset : offsets) {
+            int row = square / 8 + offset[0];
+            int col = square % 8 + offset[1];
+            if (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                attacks |= 1L << (row * 8 + col);
+            }
+        }
+        return attacks;
+    }
+
+    /** The squares whose occupancy can change a slider's attacks: its rays minus the final edge square */
+    private static long relevantMask(int square, int[][] directions) {
+        long mask = 0L;
+        for (int[] direction : directions) {
+            int row = square / 8 + direction[0];
+            int col = square % 8 + direction[1];
+            while (row + direction[0] >= 0 && row + direction[0] < 8
+                    && col + direction[1] >= 0 && col + direction[1] < 8) {
+                mask |= 1L << (row * 8 + col);
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long[] buildTable(int[][] directions, long[] masks, long[] magics, int[] shifts, int[] offsets) {
+        int total = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = relevantMask(square, directions);
+            shifts[square] = 64 - Long.bitCount(masks[square]);
+            offsets[square] = total;
+            total += 1 << Long.bitCount(masks[square]);
+        }
+
+        long[] table = new long[total];
+        boolean[] filled = new boolean[total];
+        for (int square = 0; square < 64; square++) {
+            long mask = masks[square];
+            long subset = 0L;
+            do {
+                int index = offsets[square] + (int) ((subset * magics[square]) >>> shifts[square]);
+                long attacks = slidingAttacks(square, subset, directions);
+                if (filled[index] && table[index] != attacks) {
+                    throw new IllegalStateException("Magic number collision on square " + square);
+                }
+                filled[index] = true;
+                table[index] = attacks;
+                subset = (subset - mask) & mask;
+            } while (subset != 0);
+        }
+        return table;
+    }
+}
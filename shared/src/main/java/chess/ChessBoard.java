@@ -1,16 +1,44 @@
 package chess;
 
 import java.util.Arrays;
+import java.util.function.BiConsumer;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
+ * Pieces are stored as twelve 64-bit occupancy bitboards, one per color and
+ * piece type, plus per-color and total occupancy masks. Square {@code 0} is
+ * row 1 column 1 and square {@code 63} is row 8 column 8. A 64-entry mailbox
+ * alongside the bitboards answers "what is on this square" with one lookup, and the
+ * per-color occupancy masks double as piece lists, so scans visit only occupied
+ * squares.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
 public class ChessBoard {
 
-    private final ChessPiece[][] squares = new ChessPiece[8][8];
+    /*
+     * Undo record layout: from (6 bits), to (6), moved piece (4), captured piece (4),
+     * captured square (6) which differs from "to" only for en passant, and a castle flag.
+     */
+    private static final int TO_SHIFT = 6;
+    private static final int MOVED_SHIFT = 12;
+    private static final int CAPTURED_SHIFT = 16;
+    private static final int CAPTURE_SQUARE_SHIFT = 20;
+    private static final long CASTLE_FLAG = 1L << 26;
+    private static final long SQUARE_MASK = 0x3F;
+    private static final long PIECE_MASK = 0xF;
+    private static final int NO_PIECE = 0xF;
+
+    private final long[] pieces = new long[12];
+    private final long[] colorOccupancy = new long[2];
+    /** Piece index + 1 on each square, 0 when empty */
+    private final byte[] mailbox = new byte[64];
+    private long occupied;
+    private long zobristKey;
+    /** Attacker counts, maintained only while attack tracking is on */
+    private transient AttackMap attackMap;
 
     public ChessBoard() {
 
@@ -23,7 +51,11 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow() - 1][position.getColumn() - 1] = piece;
+        int square = square(position);
+        clearSquare(square);
+        if (piece != null) {
+            putPiece(square, pieceIndex(piece.getTeamColor(), piece.getPieceType()));
+        }
     }
 
     /**
@@ -34,7 +66,8 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return squares[position.getRow() - 1][position.getColumn() - 1];
+        int index = pieceIndexAt(square(position));
+        return index < 0 ? null : ChessPiece.ofIndex(index);
     }
 
     /**
@@ -42,52 +75,310 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                squares[i][j] = null;
-            }
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(colorOccupancy, 0L);
+        Arrays.fill(mailbox, (byte) 0);
+        occupied = 0L;
+        zobristKey = 0L;
+        if (attackMap != null) {
+            attackMap = new AttackMap(this);
         }
 
-        addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(1, 2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1, 3), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1, 4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(1, 6), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1, 7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1, 8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1, 1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1, 2), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1, 3), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1, 4), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(1, 5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(1, 6), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1, 7), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1, 8), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
 
         for (int col = 1; col <= 8; col++) {
-            addPiece(new ChessPosition(2, col), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(2, col), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
         }
 
-        addPiece(new ChessPosition(8, 1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(8, 2), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8, 3), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8, 4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(8, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(8, 6), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8, 7), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8, 1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8, 2), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8, 3), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8, 4), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(8, 5), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(8, 6), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8, 7), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8, 8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
 
         for (int col = 1; col <= 8; col++) {
-            addPiece(new ChessPosition(7, col), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(7, col), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
     }
 
     /** Creates a deep copy of the chess board */
     public ChessBoard copy() {
         ChessBoard newBoard = new ChessBoard();
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = this.getPiece(pos);
-                if (piece != null) {
-                    newBoard.addPiece(pos, new ChessPiece(piece.getTeamColor(), piece.getPieceType()));
-                }
+        System.arraycopy(pieces, 0, newBoard.pieces, 0, pieces.length);
+        System.arraycopy(colorOccupancy, 0, newBoard.colorOccupancy, 0, colorOccupancy.length);
+        System.arraycopy(mailbox, 0, newBoard.mailbox, 0, mailbox.length);
+        newBoard.occupied = occupied;
+        newBoard.zobristKey = zobristKey;
+        newBoard.attackMap = attackMap == null ? null : attackMap.copy();
+        return newBoard;
+    }
+
+    /**
+     * Plays a move in place, including the rook hop of a castle, the pawn removed by
+     * an en passant capture, and promotion. The move is not checked for legality.
+     *
+     * @param move the move to play
+     * @return an undo record to hand back to {@link #unmakeMove(long)}
+     */
+    public long makeMove(ChessMove move) {
+        return makeMove(PackedMove.of(move));
+    }
+
+    /**
+     * Plays a {@link PackedMove} in place. See {@link #makeMove(ChessMove)}.
+     *
+     * @param move the packed move to play
+     * @return an undo record to hand back to {@link #unmakeMove(long)}
+     */
+    public long makeMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int moved = pieceIndexAt(from);
+        if (moved < 0) {
+            throw new IllegalArgumentException("No piece at " + ChessPosition.ofSquare(from));
+        }
+
+        int captureSquare = to;
+        int captured = pieceIndexAt(to);
+        int type = moved % 6;
+        int colDiff = (to & 7) - (from & 7);
+        if (type == ChessPiece.PieceType.PAWN.ordinal() && colDiff != 0 && captured < 0) {
+            int enemyPawn = (moved < 6 ? 6 : 0) + ChessPiece.PieceType.PAWN.ordinal();
+            if (pieceIndexAt((from & ~7) | (to & 7)) == enemyPawn) {
+                captureSquare = (from & ~7) | (to & 7);
+                captured = enemyPawn;
             }
         }
-        return newBoard;
+
+        long undo = from | (long) to << TO_SHIFT | (long) moved << MOVED_SHIFT
+                | (long) captureSquare << CAPTURE_SQUARE_SHIFT
+                | (long) (captured < 0 ? NO_PIECE : captured) << CAPTURED_SHIFT;
+
+        if (captured >= 0) {
+            removePiece(captureSquare, captured);
+        }
+        removePiece(from, moved);
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        putPiece(to, promotion == null ? moved : moved - type + promotion.ordinal());
+
+        if (type == ChessPiece.PieceType.KING.ordinal() && (from & 7) == 4 && Math.abs(colDiff) == 2) {
+            int rookFrom = colDiff > 0 ? from + 3 : from - 4;
+            int rookTo = colDiff > 0 ? from + 1 : from - 1;
+            int rook = moved - type + ChessPiece.PieceType.ROOK.ordinal();
+            if (pieceIndexAt(rookFrom) == rook) {
+                removePiece(rookFrom, rook);
+                putPiece(rookTo, rook);
+                undo |= CASTLE_FLAG;
+            }
+        }
+        return undo;
+    }
+
+    /**
+     * Reverts a move played by {@link #makeMove(ChessMove)} or {@link #makeMove(int)}. Undo records must be
+     * reverted in the reverse order they were made.
+     *
+     * @param undo the record returned when the move was made
+     */
+    public void unmakeMove(long undo) {
+        int from = (int) (undo & SQUARE_MASK);
+        int to = (int) (undo >>> TO_SHIFT & SQUARE_MASK);
+        int moved = (int) (undo >>> MOVED_SHIFT & PIECE_MASK);
+        int captured = (int) (undo >>> CAPTURED_SHIFT & PIECE_MASK);
+        int captureSquare = (int) (undo >>> CAPTURE_SQUARE_SHIFT & SQUARE_MASK);
+
+        if ((undo & CASTLE_FLAG) != 0) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = to > from ? from + 1 : from - 1;
+            int rook = moved - moved % 6 + ChessPiece.PieceType.ROOK.ordinal();
+            removePiece(rookTo, rook);
+            putPiece(rookFrom, rook);
+        }
+
+        removePiece(to, pieceIndexAt(to));
+        putPiece(from, moved);
+        if (captured != NO_PIECE) {
+            putPiece(captureSquare, captured);
+        }
+    }
+
+    /**
+     * Gets the Zobrist key of the piece placement. It is updated incrementally as
+     * pieces are added, moved and removed, so equal boards always have equal keys.
+     *
+     * @return 64-bit hash of the pieces on the board
+     */
+    public long zobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * Turns incrementally maintained attack maps on or off. While on, the board keeps a
+     * count of each team's attackers on every square, updated as pieces are added,
+     * moved and removed, so check and attacked-square queries become lookups. Each
+     * change to the board costs a little more, so leave it off unless attack queries
+     * dominate.
+     *
+     * @param enabled whether to maintain the attack maps
+     */
+    public void setAttackTracking(boolean enabled) {
+        attackMap = enabled ? new AttackMap(this) : null;
+    }
+
+    /**
+     * @return True if attack maps are being maintained
+     */
+    public boolean isAttackTracking() {
+        return attackMap != null;
+    }
+
+    /**
+     * Counts the pieces of a team attacking a square. A lookup while attack tracking is
+     * on, otherwise computed on the spot.
+     *
+     * @param position the square to inspect
+     * @param byColor  the attacking team
+     * @return number of byColor's pieces attacking the square
+     */
+    public int getAttackerCount(ChessPosition position, ChessGame.TeamColor byColor) {
+        int square = square(position);
+        if (attackMap != null) {
+            return attackMap.attackerCount(square, byColor);
+        }
+        return Long.bitCount(LegalMoveGenerator.attackersTo(this, square, byColor, occupied));
+    }
+
+    /**
+     * @return bitboard of the squares attacked by any piece of the team
+     */
+    public long getAttackedSquares(ChessGame.TeamColor byColor) {
+        return (attackMap != null ? attackMap : new AttackMap(this)).attackedSquares(byColor);
+    }
+
+    /** The attack maps, or null while attack tracking is off */
+    AttackMap attackMap() {
+        return attackMap;
+    }
+
+    /**
+     * @return bitboard of the squares holding the given piece
+     */
+    public long getBitboard(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces[pieceIndex(color, type)];
+    }
+
+    /**
+     * @return bitboard of the squares holding any piece of the given team
+     */
+    public long getOccupancy(ChessGame.TeamColor color) {
+        return colorOccupancy[color.ordinal()];
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    public long getOccupancy() {
+        return occupied;
+    }
+
+    /**
+     * Gets the position of a team's king without scanning the board
+     *
+     * @return the king's position, or null if the team has no king on the board
+     */
+    public ChessPosition getKingPosition(ChessGame.TeamColor color) {
+        int square = kingSquare(color);
+        return square < 0 ? null : ChessPosition.ofSquare(square);
+    }
+
+    /**
+     * Calls the action for each of a team's pieces, visiting only occupied squares
+     *
+     * @param color  the team whose pieces to visit
+     * @param action called with each piece's position and the piece
+     */
+    public void forEachPiece(ChessGame.TeamColor color, BiConsumer<ChessPosition, ChessPiece> action) {
+        long remaining = colorOccupancy[color.ordinal()];
+        while (remaining != 0) {
+            int square = Long.numberOfTrailingZeros(remaining);
+            action.accept(ChessPosition.ofSquare(square), ChessPiece.ofIndex(mailbox[square] - 1));
+            remaining &= remaining - 1;
+        }
+    }
+
+    /**
+     * @return number of pieces the team has on the board
+     */
+    public int pieceCount(ChessGame.TeamColor color) {
+        return Long.bitCount(colorOccupancy[color.ordinal()]);
+    }
+
+    /** Returns the 0-63 square of a team's king, or -1 if it has none */
+    int kingSquare(ChessGame.TeamColor color) {
+        long king = pieces[pieceIndex(color, ChessPiece.PieceType.KING)];
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * Converts a position to its 0-63 square index. Off-board positions throw, as
+     * indexing the original 8x8 array did, instead of wrapping onto another square.
+     */
+    static int square(ChessPosition position) {
+        if (!ChessGame.onBoard(position)) {
+            throw new ArrayIndexOutOfBoundsException("Position is off the board: " + position);
+        }
+        return (position.getRow() - 1) * 8 + (position.getColumn() - 1);
+    }
+
+    /** Index of a piece into the bitboard array: color * 6 + type */
+    static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    /** Returns the piece index on the square, or -1 if the square is empty */
+    int pieceIndexAt(int square) {
+        return mailbox[square] - 1;
+    }
+
+    private void clearSquare(int square) {
+        int index = pieceIndexAt(square);
+        if (index >= 0) {
+            removePiece(square, index);
+        }
+    }
+
+    private void removePiece(int square, int index) {
+        long mask = ~(1L << square);
+        pieces[index] &= mask;
+        colorOccupancy[index / 6] &= mask;
+        occupied &= mask;
+        mailbox[square] = 0;
+        zobristKey ^= Zobrist.PIECE_SQUARE[index][square];
+        if (attackMap != null) {
+            attackMap.update(this, square, index, false);
+        }
+    }
+
+    private void putPiece(int square, int index) {
+        long bit = 1L << square;
+        pieces[index] |= bit;
+        colorOccupancy[index / 6] |= bit;
+        occupied |= bit;
+        mailbox[square] = (byte) (index + 1);
+        zobristKey ^= Zobrist.PIECE_SQUARE[index][square];
+        if (attackMap != null) {
+            attackMap.update(this, square, index, true);
+        }
     }
 
     @Override
@@ -95,11 +386,11 @@ public class ChessBoard {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ChessBoard that = (ChessBoard) o;
-        return Arrays.deepEquals(squares, that.squares);
+        return zobristKey == that.zobristKey && Arrays.equals(pieces, that.pieces);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(zobristKey);
     }
 }
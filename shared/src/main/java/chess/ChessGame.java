@@ -1,8 +1,14 @@
 package chess;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -12,21 +18,130 @@ import java.util.Objects;
  */
 public class ChessGame {
 
+    /** Number of bytes written by {@link #writeTo(ByteBuffer)} */
+    public static final int ENCODED_SIZE = GameCodec.SIZE;
+
+    /** Castling right bits, as passed to {@link MoveGenerator} */
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 0xF;
+
+    /*
+     * Game undo record layout: the board's undo record in bits 0-26, the previous
+     * castling rights in bits 27-30, the previous en passant square plus one in
+     * bits 31-37 and the previous halfmove clock in bits 38-53.
+     */
+    private static final long BOARD_UNDO_MASK = (1L << 27) - 1;
+    private static final int CASTLING_SHIFT = 27;
+    private static final int EN_PASSANT_SHIFT = 31;
+    private static final int HALFMOVE_SHIFT = 38;
+    private static final int MAX_HALFMOVE_CLOCK = 0xFFFF;
+
+    /** Castling rights kept when a move starts or ends on each square */
+    private static final int[] CASTLING_KEPT = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_KEPT, ALL_CASTLING);
+        CASTLING_KEPT[0] = ALL_CASTLING & ~WHITE_QUEENSIDE;
+        CASTLING_KEPT[4] = ALL_CASTLING & ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_KEPT[7] = ALL_CASTLING & ~WHITE_KINGSIDE;
+        CASTLING_KEPT[56] = ALL_CASTLING & ~BLACK_QUEENSIDE;
+        CASTLING_KEPT[60] = ALL_CASTLING & ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_KEPT[63] = ALL_CASTLING & ~BLACK_KINGSIDE;
+    }
+
     private ChessBoard board;
     private TeamColor teamTurn;
-    private ChessMove lastMove;
-    private boolean whiteKingMoved;
-    private boolean whiteRookAMoved;
-    private boolean whiteRookHMoved;
-    private boolean blackKingMoved;
-    private boolean blackRookAMoved;
-    private boolean blackRookHMoved;
+    private int castlingRights;
+    private int enPassantSquare;
+    private int halfmoveClock;
+    private int fullmoveNumber;
+    private transient MoveGenerator generator;
+    private transient GameStatus status;
+    private transient long statusKey;
 
     public ChessGame() {
-        board = new ChessBoard();
+        this(new ChessBoard());
         board.resetBoard();
+        castlingRights = ALL_CASTLING;
+    }
+
+    /** Creates a game on the given board with white to move and no castling or en passant */
+    ChessGame(ChessBoard board) {
+        this.board = board;
         teamTurn = TeamColor.WHITE;
-        lastMove = null;
+        enPassantSquare = -1;
+        fullmoveNumber = 1;
+        generator = MoveGenerator.fromSystemProperty();
+    }
+
+    /**
+     * Sets up a game from Forsyth-Edwards Notation. Only the piece placement field is
+     * required; missing fields default to white to move, no castling, no en passant
+     * square and move counters 0 and 1.
+     *
+     * @param fen the position, such as
+     *            {@code "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1"}
+     * @return a new game at that position
+     * @throws IllegalArgumentException if the text is not valid FEN
+     */
+    public static ChessGame fromFen(String fen) {
+        return Fen.parse(fen);
+    }
+
+    /**
+     * Writes the game in Forsyth-Edwards Notation: piece placement, side to move,
+     * castling rights, en passant square, halfmove clock and fullmove number
+     *
+     * @return the FEN string
+     */
+    public String toFen() {
+        return Fen.format(this);
+    }
+
+    /**
+     * Reads a game written by {@link #writeTo(ByteBuffer)}, advancing the buffer's
+     * position by {@value #ENCODED_SIZE} bytes
+     *
+     * @param buffer the buffer to read from
+     * @return a new game at the encoded position
+     * @throws IllegalArgumentException if the bytes are not a valid encoded game
+     * @throws java.nio.BufferUnderflowException if fewer than {@value #ENCODED_SIZE}
+     *                                           bytes remain
+     */
+    public static ChessGame readFrom(ByteBuffer buffer) {
+        return GameCodec.read(buffer);
+    }
+
+    /**
+     * Writes the position, side to move, castling rights, en passant square and move
+     * counters as exactly {@value #ENCODED_SIZE} bytes at the buffer's position. The
+     * layout is independent of the buffer's byte order; fullmove numbers above 65535
+     * are stored as 65535.
+     *
+     * @param buffer the buffer to write to
+     * @throws java.nio.BufferOverflowException if fewer than {@value #ENCODED_SIZE}
+     *                                          bytes remain
+     */
+    public void writeTo(ByteBuffer buffer) {
+        GameCodec.write(this, buffer);
+    }
+
+    /**
+     * @return moves since the last capture or pawn move, for the fifty-move rule
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return the number of the current full move, starting at 1 and increasing after
+     * each black move
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
     }
 
     /**
@@ -45,6 +160,23 @@ public class ChessGame {
         this.teamTurn = team;
     }
 
+    /**
+     * @return the generator this game uses for its moves
+     */
+    public MoveGenerator getMoveGenerator() {
+        return generator;
+    }
+
+    /**
+     * Switches the generator this game uses from the next move on. Games start with
+     * the one named by the {@value MoveGenerator#PROPERTY} system property.
+     *
+     * @param generator the generator to use
+     */
+    public void setMoveGenerator(MoveGenerator generator) {
+        this.generator = Objects.requireNonNull(generator);
+    }
+
     /**
      * Enum identifying the 2 possible teams in a chess game
      */
@@ -53,6 +185,16 @@ public class ChessGame {
         BLACK
     }
 
+    /**
+     * Where the game stands for the team whose turn it is
+     */
+    public enum GameStatus {
+        ONGOING,
+        CHECK,
+        CHECKMATE,
+        STALEMATE
+    }
+
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -61,29 +203,77 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        ChessPiece piece = board.getPiece(startPosition);
-        if (piece == null) {
+        if (board.getPiece(startPosition) == null) {
             return null;
         }
 
-        Collection<ChessMove> possibleMoves = piece.pieceMoves(board, startPosition);
-        ArrayList<ChessMove> validMoves = new ArrayList<>();
+        MoveList moves = new MoveList(32);
+        validMoves(startPosition, moves);
+        return moves.toChessMoves();
+    }
 
-        for (ChessMove move : possibleMoves) {
-            if (!moveLeavesKingInCheck(move, piece.getTeamColor())) {
-                validMoves.add(move);
-            }
+    /**
+     * Appends the valid moves for a piece to a caller-owned buffer as
+     * {@link PackedMove} codes. Appends nothing if there is no piece at startPosition.
+     *
+     * @param startPosition the piece to get valid moves for
+     * @param moves         buffer to append to
+     */
+    public void validMoves(ChessPosition startPosition, MoveList moves) {
+        ChessPiece piece = board.getPiece(startPosition);
+        if (piece == null) {
+            return;
         }
+        generator.generate(board, piece.getTeamColor(), castlingRights, enPassantSquare,
+                1L << ChessBoard.square(startPosition), moves);
+    }
 
-        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
-            addEnPassantMoves(startPosition, piece, validMoves);
-        }
+    /**
+     * Gets every valid move of the team whose turn it is in one pass. Checks and pins
+     * are worked out once for the whole team rather than once per piece, as calling
+     * {@link #validMoves(ChessPosition)} on each square would.
+     *
+     * @return the moves, grouped by start square
+     */
+    public LegalMoveMap allValidMoves() {
+        MoveList moves = new MoveList(64);
+        generateLegalMoves(moves);
+        return new LegalMoveMap(moves);
+    }
 
-        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
-            addCastlingMoves(startPosition, piece, validMoves);
-        }
+    /**
+     * Iterates the valid moves of the team whose turn it is, generating them one piece
+     * at a time as the iteration reaches it, so a caller that stops early does not pay
+     * for the rest. The game must not change while the iterator is in use.
+     *
+     * @return a lazy iterator over the valid moves
+     */
+    public Iterator<ChessMove> legalMoveIterator() {
+        LegalMoveIterator packed = new LegalMoveIterator(board, teamTurn, castlingRights, enPassantSquare,
+                generator);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return packed.hasNext();
+            }
 
-        return validMoves;
+            @Override
+            public ChessMove next() {
+                return PackedMove.toChessMove(packed.nextInt());
+            }
+        };
+    }
+
+    /**
+     * Streams the valid moves of the team whose turn it is lazily, as
+     * {@link #legalMoveIterator()} does, so short-circuiting operations such as
+     * {@code findFirst} or {@code anyMatch} stop generating once they have an answer
+     *
+     * @return a sequential stream of the valid moves
+     */
+    public Stream<ChessMove> legalMoves() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(legalMoveIterator(),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
     }
 
     /**
@@ -103,47 +293,99 @@ public class ChessGame {
             throw new InvalidMoveException("Not your turn");
         }
 
-        Collection<ChessMove> validMoves = validMoves(move.getStartPosition());
-        if (validMoves == null || !validMoves.contains(move)) {
+        if (!isLegal(move)) {
             throw new InvalidMoveException("Invalid move");
         }
 
-        boolean isEnPassant = piece.getPieceType() == ChessPiece.PieceType.PAWN
-                && Math.abs(move.getEndPosition().getColumn() - move.getStartPosition().getColumn()) == 1
-                && board.getPiece(move.getEndPosition()) == null;
+        play(PackedMove.of(move));
+        cacheStatus(computeStatus());
+    }
 
-        boolean isCastling = piece.getPieceType() == ChessPiece.PieceType.KING
-                && Math.abs(move.getEndPosition().getColumn() - move.getStartPosition().getColumn()) == 2;
+    /**
+     * Checks a single move for the piece on its start square, whichever team it
+     * belongs to. Gives the same answer as {@code validMoves(start).contains(move)} but
+     * validates only this move instead of generating every move of the piece.
+     *
+     * @param move the move to check
+     * @return True if the move is valid
+     */
+    public boolean isLegal(ChessMove move) {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        if (!onBoard(start) || !onBoard(end)) {
+            return false;
+        }
+        ChessPiece piece = board.getPiece(start);
+        return piece != null && generator.isLegal(board, piece.getTeamColor(), castlingRights, enPassantSquare,
+                PackedMove.of(move));
+    }
 
-        board.addPiece(move.getStartPosition(), null);
+    /**
+     * Writes a move in Standard Algebraic Notation, such as {@code "Nbd7"},
+     * {@code "exd6"}, {@code "O-O"} or {@code "e8=Q#"}. The move must be legal in the
+     * current position, so call this before making the move.
+     *
+     * @param move a legal move for the team whose turn it is
+     * @return the SAN text, with a check or checkmate suffix where one applies
+     * @throws IllegalArgumentException if the move is not legal
+     */
+    public String toSan(ChessMove move) {
+        StringBuilder san = new StringBuilder(8);
+        San.append(san, this, legalMove(move));
+        return san.toString();
+    }
 
-        if (move.getPromotionPiece() != null) {
-            board.addPiece(move.getEndPosition(), new ChessPiece(piece.getTeamColor(), move.getPromotionPiece()));
-        } else {
-            board.addPiece(move.getEndPosition(), piece);
-        }
+    /**
+     * Reads a move in Standard Algebraic Notation for the team whose turn it is
+     *
+     * @param san the move text, such as {@code "Nf3"}, {@code "exd5"} or {@code "O-O-O"}
+     * @return the move it names
+     * @throws IllegalArgumentException if the text names no legal move or is ambiguous
+     */
+    public ChessMove fromSan(String san) {
+        return PackedMove.toChessMove(San.parse(this, san));
+    }
 
-        if (isEnPassant) {
-            ChessPosition capturedPawnPos = new ChessPosition(
-                    move.getStartPosition().getRow(), move.getEndPosition().getColumn());
-            board.addPiece(capturedPawnPos, null);
-        }
+    /**
+     * Writes a move in the UCI long algebraic form: start and end square followed by a
+     * lowercase promotion letter, such as {@code "e2e4"}, {@code "e1g1"} for white
+     * castling kingside or {@code "e7e8q"}
+     *
+     * @param move a legal move for the team whose turn it is
+     * @return the UCI text
+     * @throws IllegalArgumentException if the move is not legal
+     */
+    public String toUci(ChessMove move) {
+        return Uci.format(legalMove(move));
+    }
 
-        if (isCastling) {
-            int row = move.getStartPosition().getRow();
-            int direction = move.getEndPosition().getColumn() - move.getStartPosition().getColumn();
-            if (direction > 0) {
-                board.addPiece(new ChessPosition(row, 8), null);
-                board.addPiece(new ChessPosition(row, 6), new ChessPiece(piece.getTeamColor(), ChessPiece.PieceType.ROOK));
-            } else {
-                board.addPiece(new ChessPosition(row, 1), null);
-                board.addPiece(new ChessPosition(row, 4), new ChessPiece(piece.getTeamColor(), ChessPiece.PieceType.ROOK));
-            }
+    /**
+     * Reads a move in the UCI long algebraic form for the team whose turn it is
+     *
+     * @param uci the move text, such as {@code "g1f3"} or {@code "a2a1n"}
+     * @return the move it names
+     * @throws IllegalArgumentException if the text is malformed or the move is not legal
+     */
+    public ChessMove fromUci(String uci) {
+        int move = Uci.parse(uci);
+        if (!isLegal(move)) {
+            throw new IllegalArgumentException("Illegal move for " + teamTurn + ": " + uci);
         }
+        return PackedMove.toChessMove(move);
+    }
 
-        updateMovedFlags(move.getStartPosition(), move.getEndPosition());
-        lastMove = move;
-        teamTurn = (teamTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+    /**
+     * Gets the status of the team whose turn it is. The status is worked out once per
+     * position, normally by {@link #makeMove(ChessMove)}, and reused until the position
+     * changes, so the check, checkmate and stalemate queries after a move are cheap.
+     *
+     * @return whether the team to move is in check, checkmated, stalemated or neither
+     */
+    public GameStatus getGameStatus() {
+        if (status == null || statusKey != zobristKey()) {
+            cacheStatus(computeStatus());
+        }
+        return status;
     }
 
     /**
@@ -153,6 +395,9 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
+        if (teamColor == teamTurn && status != null && statusKey == zobristKey()) {
+            return status == GameStatus.CHECK || status == GameStatus.CHECKMATE;
+        }
         return isKingInCheck(board, teamColor);
     }
 
@@ -163,6 +408,9 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
+        if (teamColor == teamTurn) {
+            return getGameStatus() == GameStatus.CHECKMATE;
+        }
         if (!isInCheck(teamColor)) {
             return false;
         }
@@ -178,6 +426,9 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
+        if (teamColor == teamTurn) {
+            return getGameStatus() == GameStatus.STALEMATE;
+        }
         if (isInCheck(teamColor)) {
             return false;
         }
@@ -186,19 +437,19 @@ public class ChessGame {
     }
 
     /**
-     * Sets this game's chessboard with a given board
+     * Sets this game's chessboard with a given board. Castling is allowed on every side
+     * whose king and rook stand on their starting squares, and no en passant capture is
+     * available.
      *
      * @param board the new board to use
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
-        this.lastMove = null;
-        this.whiteKingMoved = false;
-        this.whiteRookAMoved = false;
-        this.whiteRookHMoved = false;
-        this.blackKingMoved = false;
-        this.blackRookAMoved = false;
-        this.blackRookHMoved = false;
+        this.castlingRights = castlingRightsFromPlacement(board);
+        this.enPassantSquare = -1;
+        this.halfmoveClock = 0;
+        this.fullmoveNumber = 1;
+        this.status = null;
     }
 
     /**
@@ -210,202 +461,204 @@ public class ChessGame {
         return board;
     }
 
-    /** Checks if making a move would leave the team's king in check */
-    private boolean moveLeavesKingInCheck(ChessMove move, TeamColor teamColor) {
-        ChessBoard testBoard = board.copy();
-
-        ChessPiece piece = testBoard.getPiece(move.getStartPosition());
-        testBoard.addPiece(move.getStartPosition(), null);
-
-        if (move.getPromotionPiece() != null) {
-            testBoard.addPiece(move.getEndPosition(), new ChessPiece(teamColor, move.getPromotionPiece()));
-        } else {
-            testBoard.addPiece(move.getEndPosition(), piece);
+    /**
+     * Gets the Zobrist key of the game position: the board's incrementally maintained
+     * piece key combined with the side to move, castling rights and en passant file.
+     *
+     * @return 64-bit hash of the position
+     */
+    public long zobristKey() {
+        long key = board.zobristKey() ^ Zobrist.CASTLING[castlingRights];
+        if (teamTurn == TeamColor.BLACK) {
+            key ^= Zobrist.BLACK_TO_MOVE;
         }
-
-        if (piece != null && piece.getPieceType() == ChessPiece.PieceType.PAWN) {
-            int colDiff = Math.abs(move.getEndPosition().getColumn() - move.getStartPosition().getColumn());
-            if (colDiff == 1 && board.getPiece(move.getEndPosition()) == null) {
-                ChessPosition capturedPawnPos = new ChessPosition(
-                        move.getStartPosition().getRow(), move.getEndPosition().getColumn());
-                testBoard.addPiece(capturedPawnPos, null);
-            }
+        if (enPassantSquare >= 0) {
+            key ^= Zobrist.EN_PASSANT_FILE[enPassantSquare % 8];
         }
+        return key;
+    }
 
-        return isKingInCheck(testBoard, teamColor);
+    /** Creates an independent copy of the game, including its castling and en passant state */
+    ChessGame copy() {
+        ChessGame copy = new ChessGame(board.copy());
+        copy.teamTurn = teamTurn;
+        copy.castlingRights = castlingRights;
+        copy.enPassantSquare = enPassantSquare;
+        copy.halfmoveClock = halfmoveClock;
+        copy.fullmoveNumber = fullmoveNumber;
+        copy.generator = generator;
+        return copy;
     }
 
-    /** Checks if the king of the given team is in check on the given board */
-    private boolean isKingInCheck(ChessBoard testBoard, TeamColor teamColor) {
-        ChessPosition kingPosition = findKingPosition(testBoard, teamColor);
-        if (kingPosition == null) {
-            return false;
-        }
+    /** Castling rights as a 4-bit mask of WHITE_KINGSIDE, WHITE_QUEENSIDE, BLACK_KINGSIDE and BLACK_QUEENSIDE */
+    int castlingRights() {
+        return castlingRights;
+    }
 
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = testBoard.getPiece(pos);
-
-                if (piece != null && piece.getTeamColor() != teamColor) {
-                    Collection<ChessMove> moves = piece.pieceMoves(testBoard, pos);
-                    for (ChessMove move : moves) {
-                        if (move.getEndPosition().equals(kingPosition)) {
-                            return true;
-                        }
-                    }
-                }
-            }
-        }
+    /** The square a pawn skipped over with a two-square advance on the last move, or -1 */
+    int enPassantSquare() {
+        return enPassantSquare;
+    }
 
-        return false;
+    /** Checks a packed move for the team whose turn it is; flags are ignored */
+    boolean isLegal(int move) {
+        int piece = board.pieceIndexAt(PackedMove.from(move));
+        return piece >= 0 && piece / 6 == teamTurn.ordinal()
+                && generator.isLegal(board, teamTurn, castlingRights, enPassantSquare, move);
     }
 
-    /** Finds the position of the king for the given team */
-    private ChessPosition findKingPosition(ChessBoard testBoard, TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = testBoard.getPiece(pos);
+    /** Appends every legal move for the team whose turn it is */
+    void generateLegalMoves(MoveList moves) {
+        generator.generate(board, teamTurn, castlingRights, enPassantSquare, -1L, moves);
+    }
 
-                if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING
-                        && piece.getTeamColor() == teamColor) {
-                    return pos;
-                }
-            }
+    /**
+     * Plays a move without validating it, updating the board and all game state
+     *
+     * @param move a legal packed move for the team whose turn it is
+     * @return an undo record to hand back to {@link #undo(long)}
+     */
+    long play(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        boolean pawn = board.pieceIndexAt(from) % 6 == ChessPiece.PieceType.PAWN.ordinal();
+        boolean capture = board.pieceIndexAt(to) >= 0;
+        long undo = board.makeMove(move) | (long) castlingRights << CASTLING_SHIFT
+                | (long) (enPassantSquare + 1) << EN_PASSANT_SHIFT | (long) halfmoveClock << HALFMOVE_SHIFT;
+        castlingRights &= CASTLING_KEPT[from] & CASTLING_KEPT[to];
+        enPassantSquare = pawn && Math.abs(to - from) == 16 ? (from + to) / 2 : -1;
+        halfmoveClock = pawn || capture ? 0 : Math.min(halfmoveClock + 1, MAX_HALFMOVE_CLOCK);
+        if (teamTurn == TeamColor.BLACK) {
+            fullmoveNumber++;
         }
-        return null;
+        teamTurn = opponent(teamTurn);
+        return undo;
     }
 
-    /** Adds castling moves if its available */
-    private void addCastlingMoves(ChessPosition position, ChessPiece piece, ArrayList<ChessMove> validMoves) {
-        TeamColor color = piece.getTeamColor();
-
-        if (isInCheck(color)) {
-            return;
+    /** Reverts a move made by {@link #play(int)}; records must be undone newest first */
+    void undo(long undo) {
+        teamTurn = opponent(teamTurn);
+        castlingRights = (int) (undo >>> CASTLING_SHIFT) & ALL_CASTLING;
+        enPassantSquare = (int) (undo >>> EN_PASSANT_SHIFT & 0x7F) - 1;
+        halfmoveClock = (int) (undo >>> HALFMOVE_SHIFT) & MAX_HALFMOVE_CLOCK;
+        if (teamTurn == TeamColor.BLACK) {
+            fullmoveNumber--;
         }
+        board.unmakeMove(undo & BOARD_UNDO_MASK);
+    }
 
-        int row = position.getRow();
-        boolean kingMoved;
-        boolean rookAMoved;
-        boolean rookHMoved;
-
-        if (color == TeamColor.WHITE) {
-            kingMoved = whiteKingMoved;
-            rookAMoved = whiteRookAMoved;
-            rookHMoved = whiteRookHMoved;
-        } else {
-            kingMoved = blackKingMoved;
-            rookAMoved = blackRookAMoved;
-            rookHMoved = blackRookHMoved;
-        }
+    /** Sets the castling rights to a mask of the castling constants */
+    void setCastlingRights(int rights) {
+        castlingRights = rights & ALL_CASTLING;
+    }
 
-        if (kingMoved) {
-            return;
-        }
+    /** Sets the square a pawn just skipped over with a two-square advance, or -1 for none */
+    void setEnPassantSquare(int square) {
+        enPassantSquare = square;
+    }
 
-        if (!rookHMoved) {
-            ChessPosition rookPos = new ChessPosition(row, 8);
-            ChessPiece rook = board.getPiece(rookPos);
-            if (rook != null && rook.getPieceType() == ChessPiece.PieceType.ROOK && rook.getTeamColor() == color) {
-                if (board.getPiece(new ChessPosition(row, 6)) == null
-                        && board.getPiece(new ChessPosition(row, 7)) == null) {
-                    ChessMove throughMove = new ChessMove(position, new ChessPosition(row, 6), null);
-                    ChessMove destMove = new ChessMove(position, new ChessPosition(row, 7), null);
-                    if (!moveLeavesKingInCheck(throughMove, color) && !moveLeavesKingInCheck(destMove, color)) {
-                        validMoves.add(destMove);
-                    }
-                }
-            }
-        }
+    /** Sets the move counters; the halfmove clock is capped at what an undo record can hold */
+    void setMoveCounters(int halfmoveClock, int fullmoveNumber) {
+        this.halfmoveClock = Math.min(halfmoveClock, MAX_HALFMOVE_CLOCK);
+        this.fullmoveNumber = fullmoveNumber;
+    }
 
-        if (!rookAMoved) {
-            ChessPosition rookPos = new ChessPosition(row, 1);
-            ChessPiece rook = board.getPiece(rookPos);
-            if (rook != null && rook.getPieceType() == ChessPiece.PieceType.ROOK && rook.getTeamColor() == color) {
-                if (board.getPiece(new ChessPosition(row, 2)) == null
-                        && board.getPiece(new ChessPosition(row, 3)) == null
-                        && board.getPiece(new ChessPosition(row, 4)) == null) {
-                    ChessMove throughMove = new ChessMove(position, new ChessPosition(row, 4), null);
-                    ChessMove destMove = new ChessMove(position, new ChessPosition(row, 3), null);
-                    if (!moveLeavesKingInCheck(throughMove, color) && !moveLeavesKingInCheck(destMove, color)) {
-                        validMoves.add(destMove);
-                    }
-                }
-            }
+    /** Castling rights for a board whose history is unknown: every king and rook still at home */
+    private static int castlingRightsFromPlacement(ChessBoard board) {
+        long whiteRooks = board.getBitboard(TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        long blackRooks = board.getBitboard(TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        int rights = 0;
+        if (board.kingSquare(TeamColor.WHITE) == 4) {
+            if ((whiteRooks & 1L << 7) != 0) rights |= WHITE_KINGSIDE;
+            if ((whiteRooks & 1L) != 0) rights |= WHITE_QUEENSIDE;
         }
+        if (board.kingSquare(TeamColor.BLACK) == 60) {
+            if ((blackRooks & 1L << 63) != 0) rights |= BLACK_KINGSIDE;
+            if ((blackRooks & 1L << 56) != 0) rights |= BLACK_QUEENSIDE;
+        }
+        return rights;
     }
 
-    /** Updates flags tracking if kings and rooks have moved */
-    private void updateMovedFlags(ChessPosition startPosition, ChessPosition endPosition) {
-        int startRow = startPosition.getRow();
-        int startCol = startPosition.getColumn();
-        int endRow = endPosition.getRow();
-        int endCol = endPosition.getColumn();
-
-        if (startRow == 1 && startCol == 5) whiteKingMoved = true;
-        if (startRow == 1 && startCol == 1) whiteRookAMoved = true;
-        if (startRow == 1 && startCol == 8) whiteRookHMoved = true;
-        if (startRow == 8 && startCol == 5) blackKingMoved = true;
-        if (startRow == 8 && startCol == 1) blackRookAMoved = true;
-        if (startRow == 8 && startCol == 8) blackRookHMoved = true;
-
-        if (endRow == 1 && endCol == 1) whiteRookAMoved = true;
-        if (endRow == 1 && endCol == 8) whiteRookHMoved = true;
-        if (endRow == 8 && endCol == 1) blackRookAMoved = true;
-        if (endRow == 8 && endCol == 8) blackRookHMoved = true;
+    /** Checks if the king of the given team is in check on the given board */
+    private boolean isKingInCheck(ChessBoard testBoard, TeamColor teamColor) {
+        int kingSquare = testBoard.kingSquare(teamColor);
+        return kingSquare >= 0 && isSquareAttacked(testBoard, kingSquare, opponent(teamColor));
     }
 
-    /** en passant moves if available */
-    private void addEnPassantMoves(ChessPosition position, ChessPiece piece, ArrayList<ChessMove> validMoves) {
-        if (lastMove == null) {
-            return;
-        }
-
-        ChessPiece lastPiece = board.getPiece(lastMove.getEndPosition());
-        if (lastPiece == null || lastPiece.getPieceType() != ChessPiece.PieceType.PAWN) {
-            return;
+    /**
+     * Checks if any piece of the given team attacks a square. Reads the board's attack
+     * map when it keeps one; otherwise looks outward from the square through the attack
+     * tables for each kind of attacker, rather than generating the attacking team's
+     * moves.
+     *
+     * @param testBoard the board to inspect
+     * @param square    0-63 index of the target square
+     * @param byColor   the attacking team
+     * @return True if a piece of byColor attacks the square
+     */
+    static boolean isSquareAttacked(ChessBoard testBoard, int square, TeamColor byColor) {
+        AttackMap attackMap = testBoard.attackMap();
+        if (attackMap != null) {
+            return attackMap.isAttacked(square, byColor);
         }
 
-        int lastRowDiff = Math.abs(lastMove.getEndPosition().getRow() - lastMove.getStartPosition().getRow());
-        if (lastRowDiff != 2) {
-            return;
+        long pawns = testBoard.getBitboard(byColor, ChessPiece.PieceType.PAWN);
+        if ((AttackTables.PAWN[opponent(byColor).ordinal()][square] & pawns) != 0
+                || (AttackTables.KNIGHT[square] & testBoard.getBitboard(byColor, ChessPiece.PieceType.KNIGHT)) != 0
+                || (AttackTables.KING[square] & testBoard.getBitboard(byColor, ChessPiece.PieceType.KING)) != 0) {
+            return true;
         }
 
-        int ourRow = position.getRow();
-        int ourCol = position.getColumn();
-        int theirRow = lastMove.getEndPosition().getRow();
-        int theirCol = lastMove.getEndPosition().getColumn();
+        long occupied = testBoard.getOccupancy();
+        long queens = testBoard.getBitboard(byColor, ChessPiece.PieceType.QUEEN);
+        long rookLike = testBoard.getBitboard(byColor, ChessPiece.PieceType.ROOK) | queens;
+        long bishopLike = testBoard.getBitboard(byColor, ChessPiece.PieceType.BISHOP) | queens;
+        return (rookLike != 0 && (AttackTables.rookAttacks(square, occupied) & rookLike) != 0)
+                || (bishopLike != 0 && (AttackTables.bishopAttacks(square, occupied) & bishopLike) != 0);
+    }
 
-        if (ourRow != theirRow || Math.abs(ourCol - theirCol) != 1) {
-            return;
+    /** Works out the status of the team whose turn it is from scratch */
+    private GameStatus computeStatus() {
+        boolean inCheck = isKingInCheck(board, teamTurn);
+        if (hasAnyValidMoves(teamTurn)) {
+            return inCheck ? GameStatus.CHECK : GameStatus.ONGOING;
         }
+        return inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+    }
 
-        int direction = (piece.getTeamColor() == TeamColor.WHITE) ? 1 : -1;
-        ChessPosition enPassantTarget = new ChessPosition(ourRow + direction, theirCol);
-        ChessMove enPassantMove = new ChessMove(position, enPassantTarget, null);
+    /**
+     * Remembers the status along with the position key it was computed for. Checking
+     * the key on every read catches any change to the position, including pieces
+     * added to the board directly through {@link #getBoard()}.
+     */
+    private void cacheStatus(GameStatus newStatus) {
+        status = newStatus;
+        statusKey = zobristKey();
+    }
 
-        if (!moveLeavesKingInCheck(enPassantMove, piece.getTeamColor())) {
-            validMoves.add(enPassantMove);
+    /** Packs a move after checking that it is on the board and legal for the team whose turn it is */
+    private int legalMove(ChessMove move) {
+        if (onBoard(move.getStartPosition()) && onBoard(move.getEndPosition())) {
+            int packed = PackedMove.of(move);
+            if (isLegal(packed)) {
+                return packed;
+            }
         }
+        throw new IllegalArgumentException("Illegal move for " + teamTurn + ": " + move);
     }
 
-    /** Checks if the team has any valid moves */
+    /** Checks if the team has any valid moves, stopping at the first one found */
     private boolean hasAnyValidMoves(TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(pos);
-
-                if (piece != null && piece.getTeamColor() == teamColor) {
-                    Collection<ChessMove> moves = validMoves(pos);
-                    if (moves != null && !moves.isEmpty()) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return new LegalMoveIterator(board, teamColor, castlingRights, enPassantSquare, generator).hasNext();
+    }
+
+    static boolean onBoard(ChessPosition position) {
+        return position != null && position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
+    private static TeamColor opponent(TeamColor teamColor) {
+        return teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
     }
 
     @Override
@@ -413,12 +666,13 @@ public class ChessGame {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ChessGame chessGame = (ChessGame) o;
-        return teamTurn == chessGame.teamTurn && Objects.equals(board, chessGame.board);
+        return teamTurn == chessGame.teamTurn && castlingRights == chessGame.castlingRights
+                && enPassantSquare == chessGame.enPassantSquare && Objects.equals(board, chessGame.board);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(board, teamTurn);
+        return Long.hashCode(zobristKey());
     }
 
     @Override
@@ -1,6 +1,5 @@
 package chess;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Objects;
 
@@ -12,6 +11,16 @@ import java.util.Objects;
  */
 public class ChessPiece {
 
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[color.ordinal() * 6 + type.ordinal()] = new ChessPiece(color, type);
+            }
+        }
+    }
+
     private final ChessGame.TeamColor pieceColor;
     private final PieceType type;
 
@@ -20,6 +29,21 @@ public class ChessPiece {
         this.type = type;
     }
 
+    /**
+     * Gets the shared instance for a color and type. Pieces are immutable, so the
+     * twelve possible pieces can be reused everywhere.
+     *
+     * @return the piece of the given color and type
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, PieceType type) {
+        return PIECES[pieceColor.ordinal() * 6 + type.ordinal()];
+    }
+
+    /** Gets the shared instance for a bitboard index (color * 6 + type) */
+    static ChessPiece ofIndex(int index) {
+        return PIECES[index];
+    }
+
     /**
      * The various different chess piece options
      */
@@ -54,183 +78,104 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        ArrayList<ChessMove> moves = new ArrayList<>();
+        MoveList moves = new MoveList(32);
+        generateMoves(board, ChessBoard.square(myPosition), moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * Appends the same moves as {@link #pieceMoves(ChessBoard, ChessPosition)} to a
+     * caller-owned buffer as {@link PackedMove} codes, without allocating
+     *
+     * @param board  the board the piece is on
+     * @param square 0-63 index of the piece's square
+     * @param moves  buffer to append to
+     */
+    public void generateMoves(ChessBoard board, int square, MoveList moves) {
+        long friendly = board.getOccupancy(pieceColor);
+        long occupied = board.getOccupancy();
 
         if (type == PieceType.KING) {
-            addKingMoves(board, myPosition, moves);
+            addTargets(square, AttackTables.KING[square] & ~friendly, occupied, moves);
         } else if (type == PieceType.QUEEN) {
-            addQueenMoves(board, myPosition, moves);
+            addTargets(square, AttackTables.queenAttacks(square, occupied) & ~friendly, occupied, moves);
         } else if (type == PieceType.BISHOP) {
-            addBishopMoves(board, myPosition, moves);
+            addTargets(square, AttackTables.bishopAttacks(square, occupied) & ~friendly, occupied, moves);
         } else if (type == PieceType.KNIGHT) {
-            addKnightMoves(board, myPosition, moves);
+            addTargets(square, AttackTables.KNIGHT[square] & ~friendly, occupied, moves);
         } else if (type == PieceType.ROOK) {
-            addRookMoves(board, myPosition, moves);
+            addTargets(square, AttackTables.rookAttacks(square, occupied) & ~friendly, occupied, moves);
         } else if (type == PieceType.PAWN) {
-            addPawnMoves(board, myPosition, moves);
+            addPawnMoves(board, square, moves);
         }
-
-        return moves;
-    }
-
-    private void addRookMoves(ChessBoard board, ChessPosition myPosition, ArrayList<ChessMove> moves) {
-        int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
-        addSlidingMoves(board, myPosition, moves, directions);
-    }
-
-    private void addBishopMoves(ChessBoard board, ChessPosition myPosition, ArrayList<ChessMove> moves) {
-        int[][] directions = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
-        addSlidingMoves(board, myPosition, moves, directions);
     }
 
-    private void addQueenMoves(ChessBoard board, ChessPosition myPosition, ArrayList<ChessMove> moves) {
-        int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
-        addSlidingMoves(board, myPosition, moves, directions);
-    }
-
-    private void addSlidingMoves(ChessBoard board, ChessPosition myPosition, ArrayList<ChessMove> moves, int[][] directions) {
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
-
-        for (int i = 0; i < directions.length; i++) {
-            int rowDir = directions[i][0];
-            int colDir = directions[i][1];
-            int newRow = row + rowDir;
-            int newCol = col + colDir;
-
-            while (isValidPosition(newRow, newCol)) {
-                ChessPosition newPosition = new ChessPosition(newRow, newCol);
-                ChessPiece pieceAtPosition = board.getPiece(newPosition);
-
-                if (pieceAtPosition == null) {
-                    moves.add(new ChessMove(myPosition, newPosition, null));
-                } else if (pieceAtPosition.getTeamColor() != this.pieceColor) {
-                    moves.add(new ChessMove(myPosition, newPosition, null));
-                    break;
-                } else {
-                    break;
-                }
-
-                newRow = newRow + rowDir;
-                newCol = newCol + colDir;
-            }
-        }
-    }
-
-    private void addKnightMoves(ChessBoard board, ChessPosition myPosition, ArrayList<ChessMove> moves) {
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
-
-        int[][] knightMoves = {
-                {2, 1}, {2, -1}, {-2, 1}, {-2, -1},
-                {1, 2}, {1, -2}, {-1, 2}, {-1, -2}
-        };
-
-        for (int i = 0; i < knightMoves.length; i++) {
-            int newRow = row + knightMoves[i][0];
-            int newCol = col + knightMoves[i][1];
-
-            if (isValidPosition(newRow, newCol)) {
-                ChessPosition newPosition = new ChessPosition(newRow, newCol);
-                ChessPiece pieceAtPosition = board.getPiece(newPosition);
-
-                if (pieceAtPosition == null || pieceAtPosition.getTeamColor() != this.pieceColor) {
-                    moves.add(new ChessMove(myPosition, newPosition, null));
-                }
-            }
+    private void addTargets(int square, long targets, long occupied, MoveList moves) {
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            moves.add(PackedMove.of(square, target, null, (occupied & 1L << target) != 0 ? PackedMove.CAPTURE : 0));
+            targets &= targets - 1;
         }
     }
 
-    private void addKingMoves(ChessBoard board, ChessPosition myPosition, ArrayList<ChessMove> moves) {
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
-
-        int[][] kingMoves = {
-                {1, 0}, {-1, 0}, {0, 1}, {0, -1},
-                {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
-        };
-
-        for (int i = 0; i < kingMoves.length; i++) {
-            int newRow = row + kingMoves[i][0];
-            int newCol = col + kingMoves[i][1];
-
-            if (isValidPosition(newRow, newCol)) {
-                ChessPosition newPosition = new ChessPosition(newRow, newCol);
-                ChessPiece pieceAtPosition = board.getPiece(newPosition);
-
-                if (pieceAtPosition == null || pieceAtPosition.getTeamColor() != this.pieceColor) {
-                    moves.add(new ChessMove(myPosition, newPosition, null));
-                }
-            }
-        }
-    }
-
-    private void addPawnMoves(ChessBoard board, ChessPosition myPosition, ArrayList<ChessMove> moves) {
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
+    private void addPawnMoves(ChessBoard board, int square, MoveList moves) {
+        long occupied = board.getOccupancy();
+        long enemies = board.getOccupancy(opponent());
 
         int direction;
         int startRow;
         int promotionRow;
 
         if (pieceColor == ChessGame.TeamColor.WHITE) {
-            direction = 1;
-            startRow = 2;
-            promotionRow = 8;
+            direction = 8;
+            startRow = 1;
+            promotionRow = 7;
         } else {
-            direction = -1;
-            startRow = 7;
-            promotionRow = 1;
+            direction = -8;
+            startRow = 6;
+            promotionRow = 0;
+        }
+
+        int target = square + direction;
+        if (target < 0 || target >= 64) {
+            return;
         }
+        boolean promotes = target / 8 == promotionRow;
+
+        if ((occupied & 1L << target) == 0) {
+            if (promotes) {
+                addPromotionMoves(square, target, 0, moves);
+            } else {
+                moves.add(PackedMove.of(square, target, null, 0));
+            }
 
-        int newRow = row + direction;
-
-        if (isValidPosition(newRow, col)) {
-            ChessPosition newPosition = new ChessPosition(newRow, col);
-            if (board.getPiece(newPosition) == null) {
-                if (newRow == promotionRow) {
-                    addPromotionMoves(myPosition, newPosition, moves);
-                } else {
-                    moves.add(new ChessMove(myPosition, newPosition, null));
-                }
-
-                if (row == startRow) {
-                    int doubleRow = row + 2 * direction;
-                    ChessPosition doublePosition = new ChessPosition(doubleRow, col);
-                    if (board.getPiece(doublePosition) == null) {
-                        moves.add(new ChessMove(myPosition, doublePosition, null));
-                    }
-                }
+            int doubleTarget = target + direction;
+            if (square / 8 == startRow && (occupied & 1L << doubleTarget) == 0) {
+                moves.add(PackedMove.of(square, doubleTarget, null, PackedMove.DOUBLE_PUSH));
             }
         }
 
-        int[] captureCols = {col - 1, col + 1};
-        for (int i = 0; i < captureCols.length; i++) {
-            int captureCol = captureCols[i];
-            if (isValidPosition(newRow, captureCol)) {
-                ChessPosition capturePosition = new ChessPosition(newRow, captureCol);
-                ChessPiece pieceAtPosition = board.getPiece(capturePosition);
-
-                if (pieceAtPosition != null && pieceAtPosition.getTeamColor() != this.pieceColor) {
-                    if (newRow == promotionRow) {
-                        addPromotionMoves(myPosition, capturePosition, moves);
-                    } else {
-                        moves.add(new ChessMove(myPosition, capturePosition, null));
-                    }
-                }
+        long captures = AttackTables.PAWN[pieceColor.ordinal()][square] & enemies;
+        while (captures != 0) {
+            int capture = Long.numberOfTrailingZeros(captures);
+            if (promotes) {
+                addPromotionMoves(square, capture, PackedMove.CAPTURE, moves);
+            } else {
+                moves.add(PackedMove.of(square, capture, null, PackedMove.CAPTURE));
             }
+            captures &= captures - 1;
         }
     }
 
-    private void addPromotionMoves(ChessPosition start, ChessPosition end, ArrayList<ChessMove> moves) {
-        moves.add(new ChessMove(start, end, PieceType.QUEEN));
-        moves.add(new ChessMove(start, end, PieceType.ROOK));
-        moves.add(new ChessMove(start, end, PieceType.BISHOP));
-        moves.add(new ChessMove(start, end, PieceType.KNIGHT));
+    private void addPromotionMoves(int start, int end, int flags, MoveList moves) {
+        moves.add(PackedMove.of(start, end, PieceType.QUEEN, flags));
+        moves.add(PackedMove.of(start, end, PieceType.ROOK, flags));
+        moves.add(PackedMove.of(start, end, PieceType.BISHOP, flags));
+        moves.add(PackedMove.of(start, end, PieceType.KNIGHT, flags));
     }
 
-    private boolean isValidPosition(int row, int col) {
-        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
+    private ChessGame.TeamColor opponent() {
+        return pieceColor == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
     }
 
     @Override
@@ -243,7 +188,7 @@ public class ChessPiece {
 
     @Override
     public int hashCode() {
-        return Objects.hash(pieceColor, type);
+        return 31 * (31 + Objects.hashCode(pieceColor)) + Objects.hashCode(type);
     }
 
     @Override
@@ -0,0 +1,205 @@
+package chess;
+
+/**
+ * Reads and writes Forsyth-Edwards Notation in a single pass over the characters,
+ * without regular expressions, splitting or intermediate strings.
+ */
+final class Fen {
+
+    /** Piece symbols in bitboard index order: white then black, king to pawn */
+    private static final String SYMBOLS = "KQBNRPkqbnrp";
+
+    private Fen() {
+    }
+
+    static ChessGame parse(String fen) {
+        int length = fen.length();
+        int i = skipSpaces(fen, 0);
+        ChessBoard board = new ChessBoard();
+        int row = 7;
+        int col = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != 8 || row == 0) {
+                    throw error(fen, i, "each rank must cover 8 squares");
+                }
+                row--;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+                if (col > 8) {
+                    throw error(fen, i, "rank is longer than 8 squares");
+                }
+            } else {
+                int index = SYMBOLS.indexOf(c);
+                if (index < 0) {
+                    throw error(fen, i, "unknown piece '" + c + "'");
+                }
+                if (col == 8) {
+                    throw error(fen, i, "rank is longer than 8 squares");
+                }
+                board.addPiece(ChessPosition.ofSquare(row * 8 + col++), ChessPiece.ofIndex(index));
+            }
+        }
+        if (row != 0 || col != 8) {
+            throw error(fen, i, "piece placement must have 8 ranks of 8 squares");
+        }
+        ChessGame game = new ChessGame(board);
+
+        i = skipSpaces(fen, i);
+        if (i < length) {
+            char side = fen.charAt(i);
+            if (side == 'b') {
+                game.setTeamTurn(ChessGame.TeamColor.BLACK);
+            } else if (side != 'w') {
+                throw error(fen, i, "side to move must be 'w' or 'b'");
+            }
+            i = endOfField(fen, i + 1);
+        }
+
+        i = skipSpaces(fen, i);
+        if (i < length) {
+            int rights = 0;
+            if (fen.charAt(i) == '-') {
+                i++;
+            } else {
+                for (; i < length && fen.charAt(i) != ' '; i++) {
+                    switch (fen.charAt(i)) {
+                        case 'K' -> rights |= ChessGame.WHITE_KINGSIDE;
+                        case 'Q' -> rights |= ChessGame.WHITE_QUEENSIDE;
+                        case 'k' -> rights |= ChessGame.BLACK_KINGSIDE;
+                        case 'q' -> rights |= ChessGame.BLACK_QUEENSIDE;
+                        default -> throw error(fen, i, "castling rights must be '-' or letters from KQkq");
+                    }
+                }
+            }
+            game.setCastlingRights(rights);
+            i = endOfField(fen, i);
+        }
+
+        i = skipSpaces(fen, i);
+        if (i < length) {
+            if (fen.charAt(i) == '-') {
+                i++;
+            } else {
+                char file = fen.charAt(i);
+                char rank = i + 1 < length ? fen.charAt(i + 1) : ' ';
+                if (file < 'a' || file > 'h' || (rank != '3' && rank != '6')) {
+                    throw error(fen, i, "en passant square must be '-' or on the third or sixth rank");
+                }
+                game.setEnPassantSquare((rank - '1') * 8 + (file - 'a'));
+                i += 2;
+            }
+            i = endOfField(fen, i);
+        }
+
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+        i = skipSpaces(fen, i);
+        if (i < length) {
+            int start = i;
+            for (; i < length && fen.charAt(i) != ' '; i++) {
+                halfmoveClock = digit(fen, i) + halfmoveClock * 10;
+                if (i - start > 6) {
+                    throw error(fen, i, "halfmove clock is too large");
+                }
+            }
+        }
+        i = skipSpaces(fen, i);
+        if (i < length) {
+            int start = i;
+            fullmoveNumber = 0;
+            for (; i < length && fen.charAt(i) != ' '; i++) {
+                fullmoveNumber = digit(fen, i) + fullmoveNumber * 10;
+                if (i - start > 6) {
+                    throw error(fen, i, "fullmove number is too large");
+                }
+            }
+            if (fullmoveNumber == 0) {
+                throw error(fen, start, "fullmove number starts at 1");
+            }
+        }
+        i = skipSpaces(fen, i);
+        if (i < length) {
+            throw error(fen, i, "unexpected text after the fullmove number");
+        }
+        game.setMoveCounters(halfmoveClock, fullmoveNumber);
+        return game;
+    }
+
+    static String format(ChessGame game) {
+        StringBuilder fen = new StringBuilder(90);
+        appendPosition(fen, game.getBoard(), game.getTeamTurn(), game.castlingRights(), game.enPassantSquare());
+        fen.append(' ').append(game.getHalfmoveClock()).append(' ').append(game.getFullmoveNumber());
+        return fen.toString();
+    }
+
+    /** Appends the first four FEN fields: placement, side to move, castling and en passant */
+    static void appendPosition(StringBuilder fen, ChessBoard board, ChessGame.TeamColor color, int castlingRights,
+                               int enPassantSquare) {
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int index = board.pieceIndexAt(row * 8 + col);
+                if (index < 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                fen.append(SYMBOLS.charAt(index));
+            }
+            if (empty > 0) {
+                fen.append((char) ('0' + empty));
+            }
+            if (row > 0) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(color == ChessGame.TeamColor.WHITE ? " w " : " b ");
+        if (castlingRights == 0) {
+            fen.append('-');
+        }
+        if ((castlingRights & ChessGame.WHITE_KINGSIDE) != 0) fen.append('K');
+        if ((castlingRights & ChessGame.WHITE_QUEENSIDE) != 0) fen.append('Q');
+        if ((castlingRights & ChessGame.BLACK_KINGSIDE) != 0) fen.append('k');
+        if ((castlingRights & ChessGame.BLACK_QUEENSIDE) != 0) fen.append('q');
+        fen.append(' ');
+        if (enPassantSquare < 0) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + enPassantSquare % 8)).append((char) ('1' + enPassantSquare / 8));
+        }
+    }
+
+    private static int skipSpaces(String fen, int i) {
+        while (i < fen.length() && fen.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    /** Checks that a field ends at index i */
+    private static int endOfField(String fen, int i) {
+        if (i < fen.length() && fen.charAt(i) != ' ') {
+            throw error(fen, i, "unexpected '" + fen.charAt(i) + "'");
+        }
+        return i;
+    }
+
+    private static int digit(String fen, int i) {
+        char c = fen.charAt(i);
+        if (c < '0' || c > '9') {
+            throw error(fen, i, "expected a number");
+        }
+        return c - '0';
+    }
+
+    private static IllegalArgumentException error(String fen, int index, String message) {
+        return new IllegalArgumentException("Invalid FEN at character " + (index + 1) + ", " + message + ": " + fen);
+    }
+}
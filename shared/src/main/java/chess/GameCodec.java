@@ -0,0 +1,96 @@
+package chess;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes a game as a fixed-size block of {@value #SIZE} bytes:
+ * <ul>
+ * <li>bytes 0-31: one nibble per square, piece index + 1 or 0 when empty, the even
+ * square of each pair in the low nibble</li>
+ * <li>byte 32: side to move in bit 0 (set for black), castling rights in bits 1-4</li>
+ * <li>byte 33: en passant square + 1, or 0 when there is none</li>
+ * <li>bytes 34-35: halfmove clock, big-endian</li>
+ * <li>bytes 36-37: fullmove number, big-endian</li>
+ * </ul>
+ * Multi-byte fields are written a byte at a time so the format does not depend on
+ * the buffer's byte order.
+ */
+final class GameCodec {
+
+    static final int SIZE = 38;
+
+    private static final int MAX_FULLMOVE_NUMBER = 0xFFFF;
+
+    private GameCodec() {
+    }
+
+    static void write(ChessGame game, ByteBuffer buffer) {
+        ChessBoard board = game.getBoard();
+        for (int square = 0; square < 64; square += 2) {
+            int low = board.pieceIndexAt(square) + 1;
+            int high = board.pieceIndexAt(square + 1) + 1;
+            buffer.put((byte) (low | high << 4));
+        }
+        int black = game.getTeamTurn() == ChessGame.TeamColor.BLACK ? 1 : 0;
+        buffer.put((byte) (black | game.castlingRights() << 1));
+        buffer.put((byte) (game.enPassantSquare() + 1));
+        putShort(buffer, game.getHalfmoveClock());
+        putShort(buffer, Math.min(game.getFullmoveNumber(), MAX_FULLMOVE_NUMBER));
+    }
+
+    static ChessGame read(ByteBuffer buffer) {
+        int start = buffer.position();
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square += 2) {
+            int pair = buffer.get() & 0xFF;
+            putPiece(board, square, pair & 0xF, start);
+            putPiece(board, square + 1, pair >>> 4, start);
+        }
+        ChessGame game = new ChessGame(board);
+
+        int flags = buffer.get() & 0xFF;
+        if (flags >>> 5 != 0) {
+            throw error(start, 32, "unused flag bits are set");
+        }
+        if ((flags & 1) != 0) {
+            game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        }
+        game.setCastlingRights(flags >>> 1);
+
+        int enPassant = (buffer.get() & 0xFF) - 1;
+        if (enPassant >= 0 && enPassant / 8 != 2 && enPassant / 8 != 5) {
+            throw error(start, 33, "en passant square must be on the third or sixth rank");
+        }
+        game.setEnPassantSquare(enPassant);
+
+        int halfmoveClock = getShort(buffer);
+        int fullmoveNumber = getShort(buffer);
+        if (fullmoveNumber == 0) {
+            throw error(start, 36, "fullmove number starts at 1");
+        }
+        game.setMoveCounters(halfmoveClock, fullmoveNumber);
+        return game;
+    }
+
+    private static void putPiece(ChessBoard board, int square, int code, int start) {
+        if (code > 12) {
+            throw error(start, square / 2, "unknown piece code " + code);
+        }
+        if (code != 0) {
+            board.addPiece(ChessPosition.ofSquare(square), ChessPiece.ofIndex(code - 1));
+        }
+    }
+
+    private static void putShort(ByteBuffer buffer, int value) {
+        buffer.put((byte) (value >>> 8)).put((byte) value);
+    }
+
+    private static int getShort(ByteBuffer buffer) {
+        return (buffer.get() & 0xFF) << 8 | buffer.get() & 0xFF;
+    }
+
+    private static IllegalArgumentException error(int start, int offset, String message) {
+        return new IllegalArgumentException("Invalid encoded game at buffer position " + (start + offset) + ", "
+                + message);
+    }
+}
@@ -0,0 +1,351 @@
+package chess;
+
+/**
+ * Generates only legal moves, without trying each move and testing for check.
+ * <p>
+ * Before emitting anything it finds the pieces giving check, the pieces pinned to
+ * their king, and the squares that resolve a single check. Each piece's targets are
+ * then masked down to the legal ones with a few bit operations: in double check only
+ * the king may move, in single check other pieces must capture the checker or block,
+ * and a pinned piece must stay on the line through its king and the pinner. King
+ * moves are tested against attacks computed with the king lifted off the board.
+ * En passant is the one move that is played and taken back to test it, since removing
+ * two pawns from a rank can expose the king along that rank.
+ */
+final class LegalMoveGenerator implements MoveGenerator {
+
+    static final LegalMoveGenerator INSTANCE = new LegalMoveGenerator();
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private LegalMoveGenerator() {
+    }
+
+    @Override
+    public void generate(ChessBoard board, ChessGame.TeamColor color, int castlingRights, int enPassantSquare,
+                  long fromMask, MoveList moves) {
+        ChessGame.TeamColor enemy = color == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long ours = board.getOccupancy(color);
+        long theirs = board.getOccupancy(enemy);
+        long occupied = ours | theirs;
+        long king = board.getBitboard(color, ChessPiece.PieceType.KING);
+
+        if (king == 0) {
+            generateUnchecked(board, color, enPassantSquare, ours, theirs, fromMask, moves);
+            return;
+        }
+
+        int kingSquare = Long.numberOfTrailingZeros(king);
+        long checkers = attackersTo(board, kingSquare, enemy, occupied);
+
+        if ((fromMask & king) != 0) {
+            addKingMoves(board, enemy, kingSquare, ours, theirs, occupied, moves);
+            if (checkers == 0) {
+                addCastlingMoves(board, color, enemy, kingSquare, castlingRights, occupied, moves);
+            }
+        }
+
+        if (Long.bitCount(checkers) > 1) {
+            return;
+        }
+
+        long checkMask = checkers == 0 ? -1L
+                : checkers | AttackTables.BETWEEN[kingSquare][Long.numberOfTrailingZeros(checkers)];
+        long pinned = 0L;
+
+        long queens = board.getBitboard(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (AttackTables.rookAttacks(kingSquare, theirs)
+                & (board.getBitboard(enemy, ChessPiece.PieceType.ROOK) | queens))
+                | (AttackTables.bishopAttacks(kingSquare, theirs)
+                & (board.getBitboard(enemy, ChessPiece.PieceType.BISHOP) | queens));
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = AttackTables.BETWEEN[kingSquare][sniper] & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & ours) != 0) {
+                pinned |= blockers;
+            }
+        }
+
+        long pieces = ours & ~king & fromMask;
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+
+            long mask = checkMask;
+            if ((pinned & 1L << from) != 0) {
+                mask &= AttackTables.LINE[kingSquare][from];
+            }
+
+            int type = board.pieceIndexAt(from) % 6;
+            if (type == ChessPiece.PieceType.PAWN.ordinal()) {
+                addPawnMoves(board, color, from, theirs, occupied, mask, moves);
+                if (enPassantSquare >= 0) {
+                    addEnPassantMove(board, color, from, enPassantSquare, moves);
+                }
+            } else {
+                addTargets(from, attacks(type, from, occupied) & ~ours & mask, theirs, moves);
+            }
+        }
+    }
+
+    /**
+     * Checks a single move without generating any others: the piece's geometry and
+     * path, the pawn, castling and promotion rules, and then one make/unmake to see
+     * whether the team's king is left attacked. Accepts exactly the moves
+     * {@link #generate} would produce for the start square.
+     */
+    @Override
+    public boolean isLegal(ChessBoard board, ChessGame.TeamColor color, int castlingRights, int enPassantSquare,
+                    int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int moved = board.pieceIndexAt(from);
+        if (moved < 0 || moved / 6 != color.ordinal()) {
+            return false;
+        }
+        ChessGame.TeamColor enemy = color == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long ours = board.getOccupancy(color);
+        long theirs = board.getOccupancy(enemy);
+        long occupied = ours | theirs;
+        long target = 1L << to;
+        if ((ours & target) != 0) {
+            return false;
+        }
+
+        int type = moved % 6;
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        if (type == ChessPiece.PieceType.PAWN.ordinal()) {
+            if (!isPawnMove(board, color, from, to, promotion, theirs, occupied, enPassantSquare)) {
+                return false;
+            }
+        } else if (promotion != null) {
+            return false;
+        } else if (type == ChessPiece.PieceType.KING.ordinal() && Math.abs((to & 7) - (from & 7)) == 2) {
+            int home = color == ChessGame.TeamColor.WHITE ? 4 : 60;
+            return from == home && to == (to > from ? home + 2 : home - 2)
+                    && !isAttacked(board, home, enemy, occupied)
+                    && canCastle(board, color, enemy, to > from, castlingRights, occupied);
+        } else if ((attacks(type, from, occupied) & target) == 0) {
+            return false;
+        }
+
+        if (board.kingSquare(color) < 0) {
+            return true;
+        }
+        long undo = board.makeMove(move);
+        boolean safe = !ChessGame.isSquareAttacked(board, board.kingSquare(color), enemy);
+        board.unmakeMove(undo);
+        return safe;
+    }
+
+    /** Checks pawn geometry: push, double push, capture or en passant, with promotion exactly on the last rank */
+    private static boolean isPawnMove(ChessBoard board, ChessGame.TeamColor color, int from, int to,
+                                      ChessPiece.PieceType promotion, long theirs, long occupied,
+                                      int enPassantSquare) {
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        boolean lastRank = white ? to >= 56 : to < 8;
+        if (lastRank != (promotion != null)
+                || promotion == ChessPiece.PieceType.KING || promotion == ChessPiece.PieceType.PAWN) {
+            return false;
+        }
+
+        int direction = white ? 8 : -8;
+        if (to == from + direction) {
+            return (occupied & 1L << to) == 0;
+        }
+        if (to == from + 2 * direction) {
+            return from / 8 == (white ? 1 : 6) && (occupied & (1L << (from + direction) | 1L << to)) == 0;
+        }
+        if ((AttackTables.PAWN[color.ordinal()][from] & 1L << to) == 0) {
+            return false;
+        }
+        if ((theirs & 1L << to) != 0) {
+            return true;
+        }
+        ChessGame.TeamColor enemy = white ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        return to == enPassantSquare && to / 8 == (white ? 5 : 2)
+                && (board.getBitboard(enemy, ChessPiece.PieceType.PAWN) & 1L << (white ? to - 8 : to + 8)) != 0;
+    }
+
+    /**
+     * Returns the pieces of byColor attacking a square, treating only the given squares
+     * as occupied
+     */
+    static long attackersTo(ChessBoard board, int square, ChessGame.TeamColor byColor, long occupied) {
+        long queens = board.getBitboard(byColor, ChessPiece.PieceType.QUEEN);
+        int defender = byColor == ChessGame.TeamColor.WHITE ? 1 : 0;
+        return (AttackTables.PAWN[defender][square] & board.getBitboard(byColor, ChessPiece.PieceType.PAWN))
+                | (AttackTables.KNIGHT[square] & board.getBitboard(byColor, ChessPiece.PieceType.KNIGHT))
+                | (AttackTables.KING[square] & board.getBitboard(byColor, ChessPiece.PieceType.KING))
+                | (AttackTables.rookAttacks(square, occupied)
+                & (board.getBitboard(byColor, ChessPiece.PieceType.ROOK) | queens))
+                | (AttackTables.bishopAttacks(square, occupied)
+                & (board.getBitboard(byColor, ChessPiece.PieceType.BISHOP) | queens));
+    }
+
+    /** Without a king nothing can be illegal, so emit the plain piece moves */
+    private void generateUnchecked(ChessBoard board, ChessGame.TeamColor color, int enPassantSquare, long ours,
+                                   long theirs, long fromMask, MoveList moves) {
+        long occupied = ours | theirs;
+        long pieces = ours & fromMask;
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            int type = board.pieceIndexAt(from) % 6;
+            if (type == ChessPiece.PieceType.PAWN.ordinal()) {
+                addPawnMoves(board, color, from, theirs, occupied, -1L, moves);
+                if (enPassantSquare >= 0) {
+                    addEnPassantMove(board, color, from, enPassantSquare, moves);
+                }
+            } else {
+                addTargets(from, attacks(type, from, occupied) & ~ours, theirs, moves);
+            }
+        }
+    }
+
+    private void addKingMoves(ChessBoard board, ChessGame.TeamColor enemy, int kingSquare, long ours, long theirs,
+                              long occupied, MoveList moves) {
+        long withoutKing = occupied & ~(1L << kingSquare);
+        long targets = AttackTables.KING[kingSquare] & ~ours;
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (attackersTo(board, target, enemy, withoutKing) == 0) {
+                moves.add(PackedMove.of(kingSquare, target, null,
+                        (theirs & 1L << target) != 0 ? PackedMove.CAPTURE : 0));
+            }
+        }
+    }
+
+    private void addCastlingMoves(ChessBoard board, ChessGame.TeamColor color, ChessGame.TeamColor enemy,
+                                  int kingSquare, int castlingRights, long occupied, MoveList moves) {
+        int home = color == ChessGame.TeamColor.WHITE ? 4 : 60;
+        if (kingSquare != home) {
+            return;
+        }
+        if (canCastle(board, color, enemy, true, castlingRights, occupied)) {
+            moves.add(PackedMove.of(home, home + 2, null, PackedMove.CASTLE));
+        }
+        if (canCastle(board, color, enemy, false, castlingRights, occupied)) {
+            moves.add(PackedMove.of(home, home - 2, null, PackedMove.CASTLE));
+        }
+    }
+
+    /**
+     * Checks the castling right, the rook, the empty squares between, and that the king
+     * does not pass through an attacked square. The caller checks that the king is home
+     * and not in check.
+     */
+    private static boolean canCastle(ChessBoard board, ChessGame.TeamColor color, ChessGame.TeamColor enemy,
+                                     boolean kingside, int castlingRights, long occupied) {
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        int home = white ? 4 : 60;
+        long rooks = board.getBitboard(color, ChessPiece.PieceType.ROOK);
+        if (kingside) {
+            return (castlingRights & (white ? ChessGame.WHITE_KINGSIDE : ChessGame.BLACK_KINGSIDE)) != 0
+                    && (rooks & 1L << (home + 3)) != 0
+                    && (occupied & 0x3L << (home + 1)) == 0
+                    && !isAttacked(board, home + 1, enemy, occupied)
+                    && !isAttacked(board, home + 2, enemy, occupied);
+        }
+        return (castlingRights & (white ? ChessGame.WHITE_QUEENSIDE : ChessGame.BLACK_QUEENSIDE)) != 0
+                && (rooks & 1L << (home - 4)) != 0
+                && (occupied & 0x7L << (home - 3)) == 0
+                && !isAttacked(board, home - 1, enemy, occupied)
+                && !isAttacked(board, home - 2, enemy, occupied);
+    }
+
+    /** Tests a square against the board's attack map if it keeps one, as the board is unchanged here */
+    private static boolean isAttacked(ChessBoard board, int square, ChessGame.TeamColor byColor, long occupied) {
+        AttackMap attackMap = board.attackMap();
+        if (attackMap != null) {
+            return attackMap.isAttacked(square, byColor);
+        }
+        return attackersTo(board, square, byColor, occupied) != 0;
+    }
+
+    private void addPawnMoves(ChessBoard board, ChessGame.TeamColor color, int from, long theirs, long occupied,
+                              long mask, MoveList moves) {
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        int direction = white ? 8 : -8;
+        int target = from + direction;
+        if (target < 0 || target >= 64) {
+            return;
+        }
+        boolean promotes = white ? target >= 56 : target < 8;
+
+        if ((occupied & 1L << target) == 0) {
+            if ((mask & 1L << target) != 0) {
+                addPawnMove(from, target, promotes, 0, moves);
+            }
+            int doubleTarget = target + direction;
+            if (from / 8 == (white ? 1 : 6) && (occupied & 1L << doubleTarget) == 0
+                    && (mask & 1L << doubleTarget) != 0) {
+                moves.add(PackedMove.of(from, doubleTarget, null, PackedMove.DOUBLE_PUSH));
+            }
+        }
+
+        long captures = AttackTables.PAWN[color.ordinal()][from] & theirs & mask;
+        while (captures != 0) {
+            addPawnMove(from, Long.numberOfTrailingZeros(captures), promotes, PackedMove.CAPTURE, moves);
+            captures &= captures - 1;
+        }
+    }
+
+    private void addPawnMove(int from, int to, boolean promotes, int flags, MoveList moves) {
+        if (promotes) {
+            moves.add(PackedMove.of(from, to, ChessPiece.PieceType.QUEEN, flags));
+            moves.add(PackedMove.of(from, to, ChessPiece.PieceType.ROOK, flags));
+            moves.add(PackedMove.of(from, to, ChessPiece.PieceType.BISHOP, flags));
+            moves.add(PackedMove.of(from, to, ChessPiece.PieceType.KNIGHT, flags));
+        } else {
+            moves.add(PackedMove.of(from, to, null, flags));
+        }
+    }
+
+    /**
+     * Adds an en passant capture if it is available to this pawn. The capture is played
+     * and taken back to catch discovered checks, including along the pawns' rank.
+     */
+    private void addEnPassantMove(ChessBoard board, ChessGame.TeamColor color, int from, int enPassantSquare,
+                                  MoveList moves) {
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        int capturedSquare = white ? enPassantSquare - 8 : enPassantSquare + 8;
+        ChessGame.TeamColor enemy = white ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        if (enPassantSquare / 8 != (white ? 5 : 2)
+                || (AttackTables.PAWN[color.ordinal()][from] & 1L << enPassantSquare) == 0
+                || (board.getBitboard(enemy, ChessPiece.PieceType.PAWN) & 1L << capturedSquare) == 0) {
+            return;
+        }
+        int move = PackedMove.of(from, enPassantSquare, null, PackedMove.CAPTURE | PackedMove.EN_PASSANT);
+        int kingSquare = board.kingSquare(color);
+        long undo = board.makeMove(move);
+        boolean exposed = kingSquare >= 0 && ChessGame.isSquareAttacked(board, kingSquare, enemy);
+        board.unmakeMove(undo);
+        if (!exposed) {
+            moves.add(move);
+        }
+    }
+
+    private void addTargets(int from, long targets, long theirs, MoveList moves) {
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            moves.add(PackedMove.of(from, target, null, (theirs & 1L << target) != 0 ? PackedMove.CAPTURE : 0));
+            targets &= targets - 1;
+        }
+    }
+
+    private static long attacks(int type, int from, long occupied) {
+        return switch (TYPES[type]) {
+            case KNIGHT -> AttackTables.KNIGHT[from];
+            case BISHOP -> AttackTables.bishopAttacks(from, occupied);
+            case ROOK -> AttackTables.rookAttacks(from, occupied);
+            case QUEEN -> AttackTables.queenAttacks(from, occupied);
+            case KING -> AttackTables.KING[from];
+            case PAWN -> 0L;
+        };
+    }
+}
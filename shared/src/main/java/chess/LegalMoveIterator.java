@@ -0,0 +1,55 @@
+package chess;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Walks the legal moves of one team as {@link PackedMove} codes, generating them one
+ * piece at a time only as they are asked for. The king goes first, since in check it
+ * is the piece most likely to have a move, so a caller that only needs to know whether
+ * any legal move exists usually stops after a single piece.
+ * <p>
+ * The board must not change while the iterator is in use.
+ */
+final class LegalMoveIterator implements PrimitiveIterator.OfInt {
+
+    private final ChessBoard board;
+    private final ChessGame.TeamColor color;
+    private final int castlingRights;
+    private final int enPassantSquare;
+    private final MoveGenerator generator;
+    private final MoveList buffer = new MoveList(32);
+    private long remaining;
+    private int index;
+
+    LegalMoveIterator(ChessBoard board, ChessGame.TeamColor color, int castlingRights, int enPassantSquare,
+                      MoveGenerator generator) {
+        this.board = board;
+        this.color = color;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.generator = generator;
+        this.remaining = board.getOccupancy(color);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (index == buffer.size() && remaining != 0) {
+            long king = remaining & board.getBitboard(color, ChessPiece.PieceType.KING);
+            long next = king != 0 ? Long.lowestOneBit(king) : Long.lowestOneBit(remaining);
+            remaining &= ~next;
+            buffer.clear();
+            index = 0;
+            generator.generate(board, color, castlingRights, enPassantSquare, next, buffer);
+        }
+        return index < buffer.size();
+    }
+
+    @Override
+    public int nextInt() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return buffer.get(index++);
+    }
+}
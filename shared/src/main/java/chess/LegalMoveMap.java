@@ -0,0 +1,109 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Every valid move of one team, grouped by start square. The moves are held as one
+ * array of {@link PackedMove} codes sorted by start square, so the whole map is a few
+ * hundred bytes and serializes as a single int array. The packed codes keep their
+ * capture, castle and en passant flags for clients that want to mark those moves.
+ */
+public final class LegalMoveMap {
+
+    /** The squares and promotion bits of a packed move, without its flags */
+    private static final int MOVE_MASK = 0xFFFF;
+
+    private final int[] moves;
+
+    /** Copies the moves out of the buffer, grouping them by start square */
+    LegalMoveMap(MoveList source) {
+        int[] counts = new int[65];
+        for (int i = 0; i < source.size(); i++) {
+            counts[PackedMove.from(source.get(i)) + 1]++;
+        }
+        for (int square = 1; square <= 64; square++) {
+            counts[square] += counts[square - 1];
+        }
+        moves = new int[source.size()];
+        for (int i = 0; i < source.size(); i++) {
+            int move = source.get(i);
+            moves[counts[PackedMove.from(move)]++] = move;
+        }
+    }
+
+    /**
+     * Gets the valid moves of the piece on a square
+     *
+     * @param startPosition the piece to get valid moves for
+     * @return the piece's moves, empty if it has none or there is no piece of this team
+     */
+    public Collection<ChessMove> getMoves(ChessPosition startPosition) {
+        int square = ChessBoard.square(startPosition);
+        Collection<ChessMove> result = new ArrayList<>();
+        for (int i = firstIndex(square); i < moves.length && PackedMove.from(moves[i]) == square; i++) {
+            result.add(PackedMove.toChessMove(moves[i]));
+        }
+        return result;
+    }
+
+    /**
+     * @return the squares of the pieces that have at least one valid move
+     */
+    public Collection<ChessPosition> getStartPositions() {
+        Collection<ChessPosition> result = new ArrayList<>();
+        for (int i = 0; i < moves.length; i++) {
+            if (i == 0 || PackedMove.from(moves[i]) != PackedMove.from(moves[i - 1])) {
+                result.add(ChessPosition.ofSquare(PackedMove.from(moves[i])));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return every move in the map, grouped by start square
+     */
+    public Collection<ChessMove> getAllMoves() {
+        Collection<ChessMove> result = new ArrayList<>(moves.length);
+        for (int move : moves) {
+            result.add(PackedMove.toChessMove(move));
+        }
+        return result;
+    }
+
+    /**
+     * @return True if the move is in the map
+     */
+    public boolean contains(ChessMove move) {
+        int packed = PackedMove.of(move);
+        for (int i = firstIndex(PackedMove.from(packed)); i < moves.length
+                && PackedMove.from(moves[i]) == PackedMove.from(packed); i++) {
+            if ((moves[i] & MOVE_MASK) == packed) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return total number of moves
+     */
+    public int size() {
+        return moves.length;
+    }
+
+    /** Binary search for the first move from the square, or where it would be */
+    private int firstIndex(int square) {
+        int low = 0;
+        int high = moves.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (PackedMove.from(moves[mid]) < square) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,99 @@
+package chess;
+
+/**
+ * Produces the legal moves of a position. {@link ChessGame} does all of its move
+ * generation and validation through one of these, so a new generator can be swapped
+ * in per game, or for every new game through the {@value #PROPERTY} system property,
+ * and swapped back out without a redeploy.
+ * <p>
+ * Implementations must be stateless or thread-safe, as one instance is shared by
+ * every game that selects it.
+ */
+public interface MoveGenerator {
+
+    /** System property naming the generator new games use: "fast", "reference", "shadow" or a class name */
+    String PROPERTY = "chess.moveGenerator";
+
+    /**
+     * Appends the legal moves for one team's pieces as {@link PackedMove} codes
+     *
+     * @param board           the position, which must be left unchanged
+     * @param color           the team to generate moves for
+     * @param castlingRights  mask of the ChessGame castling constants still available
+     * @param enPassantSquare square a pawn skipped over on the last move, or -1
+     * @param fromMask        bitboard of the start squares to generate moves for
+     * @param moves           buffer to append to
+     */
+    void generate(ChessBoard board, ChessGame.TeamColor color, int castlingRights, int enPassantSquare,
+                  long fromMask, MoveList moves);
+
+    /**
+     * Checks whether a single move is legal. The default generates the moves of the
+     * start square and searches them; implementations may check the move directly.
+     *
+     * @param board           the position, which must be left unchanged
+     * @param color           the team the moving piece must belong to
+     * @param castlingRights  mask of the ChessGame castling constants still available
+     * @param enPassantSquare square a pawn skipped over on the last move, or -1
+     * @param move            the move as a {@link PackedMove}; flags are ignored
+     * @return True if the move is legal
+     */
+    default boolean isLegal(ChessBoard board, ChessGame.TeamColor color, int castlingRights, int enPassantSquare,
+                            int move) {
+        MoveList moves = new MoveList(32);
+        generate(board, color, castlingRights, enPassantSquare, 1L << PackedMove.from(move), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if ((moves.get(i) & 0xFFFF) == (move & 0xFFFF)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the generator that computes pins and check masks up front, used by default
+     */
+    static MoveGenerator fast() {
+        return LegalMoveGenerator.INSTANCE;
+    }
+
+    /**
+     * @return the generator that filters each piece's moves by playing them and testing
+     * for check, kept as the behavior the others are measured against
+     */
+    static MoveGenerator reference() {
+        return ReferenceMoveGenerator.INSTANCE;
+    }
+
+    /**
+     * Looks up a generator by name
+     *
+     * @param name "fast", "reference", "shadow" for the shared {@link ShadowMoveGenerator}
+     *             that runs the fast generator and samples it against the reference,
+     *             or the class name of an implementation with a public no-argument
+     *             constructor, which is constructed once and then reused
+     * @return the generator
+     * @throws IllegalArgumentException if no generator can be made from the name
+     */
+    static MoveGenerator byName(String name) {
+        if (name.equalsIgnoreCase("fast")) {
+            return fast();
+        }
+        if (name.equalsIgnoreCase("reference")) {
+            return reference();
+        }
+        if (name.equalsIgnoreCase("shadow")) {
+            return ShadowMoveGenerator.shared();
+        }
+        return MoveGeneratorRegistry.forClassName(name);
+    }
+
+    /**
+     * @return the generator named by the {@value #PROPERTY} system property, or
+     * {@link #fast()} if it is not set
+     */
+    static MoveGenerator fromSystemProperty() {
+        String name = System.getProperty(PROPERTY);
+        return name == null || name.isBlank() ? fast() : byName(name.trim());
+    }
+}
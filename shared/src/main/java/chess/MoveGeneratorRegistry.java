@@ -0,0 +1,32 @@
+package chess;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generators created from a class name by {@link MoveGenerator#byName(String)}, one
+ * per name, so every game that selects a class shares its instance instead of
+ * constructing a new one
+ */
+final class MoveGeneratorRegistry {
+
+    private static final Map<String, MoveGenerator> BY_CLASS_NAME = new ConcurrentHashMap<>();
+
+    private MoveGeneratorRegistry() {
+    }
+
+    /**
+     * @return the shared instance of the named class, created on first use
+     * @throws IllegalArgumentException if the class cannot be loaded or constructed, or
+     *                                  is not a MoveGenerator
+     */
+    static MoveGenerator forClassName(String name) {
+        return BY_CLASS_NAME.computeIfAbsent(name, className -> {
+            try {
+                return (MoveGenerator) Class.forName(className).getConstructor().newInstance();
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new IllegalArgumentException("Unknown move generator: " + className, e);
+            }
+        });
+    }
+}
@@ -0,0 +1,241 @@
+package chess;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compresses a game's move history by writing each move as its index among the legal
+ * moves of the position it was played from. The legal moves are ordered by start
+ * square, end square and promotion piece, so the order does not depend on which
+ * {@link MoveGenerator} is in use.
+ * <p>
+ * With n legal moves, an index takes just enough bits to hold n + 1 values; the extra
+ * value marks the end of the history. A typical middlegame position has 30 to 40
+ * moves, so most plies take 5 or 6 bits, and a forced move takes 1. The final byte is
+ * padded with zero bits. Both sides must start from the same position, which is not
+ * itself written; store it separately, for example with {@link ChessGame#toFen()}.
+ */
+public final class MoveHistoryCodec {
+
+    private MoveHistoryCodec() {
+    }
+
+    /**
+     * Encodes a whole history in memory
+     *
+     * @param start the position before the first move, which is not modified
+     * @param moves the moves played from that position, in order
+     * @return the encoded history
+     * @throws InvalidMoveException if a move is not legal where it is played
+     */
+    public static byte[] encode(ChessGame start, List<ChessMove> moves) throws InvalidMoveException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(moves.size() + 1);
+        try (Writer writer = new Writer(start, bytes)) {
+            for (ChessMove move : moves) {
+                writer.write(move);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a byte array stream does not throw
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a whole history produced by {@link #encode(ChessGame, List)}
+     *
+     * @param start the position before the first move, which is not modified
+     * @param bytes the encoded history
+     * @return the moves, in order
+     * @throws IOException if the bytes are truncated or are not a history from start
+     */
+    public static List<ChessMove> decode(ChessGame start, byte[] bytes) throws IOException {
+        List<ChessMove> moves = new ArrayList<>();
+        try (Reader reader = new Reader(start, new ByteArrayInputStream(bytes))) {
+            for (ChessMove move = reader.read(); move != null; move = reader.read()) {
+                moves.add(move);
+            }
+        }
+        return moves;
+    }
+
+    /** Number of bits needed to write every value below count */
+    private static int width(int count) {
+        return 32 - Integer.numberOfLeadingZeros(count - 1);
+    }
+
+    /**
+     * Writes moves to a stream one at a time, playing each on its own copy of the game.
+     * {@link #finish()} or {@link #close()} must be called to write the end marker and
+     * the last partial byte.
+     */
+    public static final class Writer implements Closeable {
+        private final ChessGame game;
+        private final OutputStream out;
+        private final MoveList moves = new MoveList();
+        private int bits;
+        private int bitCount;
+        private boolean finished;
+
+        /**
+         * @param start the position before the first move, which is not modified
+         * @param out   where to write the encoded moves
+         */
+        public Writer(ChessGame start, OutputStream out) {
+            this.game = start.copy();
+            this.out = out;
+        }
+
+        /**
+         * Encodes the next move and plays it
+         *
+         * @param move the move, which must be legal in the current position
+         * @throws InvalidMoveException if the move is not legal
+         * @throws IOException          if the stream cannot be written
+         */
+        public void write(ChessMove move) throws InvalidMoveException, IOException {
+            if (finished) {
+                throw new IllegalStateException("History is already finished");
+            }
+            if (!ChessGame.onBoard(move.getStartPosition()) || !ChessGame.onBoard(move.getEndPosition())) {
+                throw new InvalidMoveException("Move is off the board: " + move);
+            }
+            int key = PackedMove.of(move) & 0xFFFF;
+            legalMoves();
+            for (int i = 0; i < moves.size(); i++) {
+                if ((moves.get(i) & 0xFFFF) == key) {
+                    writeBits(i, width(moves.size() + 1));
+                    game.play(moves.get(i));
+                    return;
+                }
+            }
+            throw new InvalidMoveException("Illegal move for " + game.getTeamTurn() + ": " + move);
+        }
+
+        /**
+         * Writes the end marker and pads the last byte, leaving the stream open so more
+         * data can follow. Calling it again has no effect.
+         *
+         * @throws IOException if the stream cannot be written
+         */
+        public void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            legalMoves();
+            writeBits(moves.size(), width(moves.size() + 1));
+            if (bitCount > 0) {
+                out.write(bits << 8 - bitCount);
+            }
+            finished = true;
+        }
+
+        /** Finishes the history and closes the stream */
+        @Override
+        public void close() throws IOException {
+            try {
+                finish();
+            } finally {
+                out.close();
+            }
+        }
+
+        private void legalMoves() {
+            moves.clear();
+            game.generateLegalMoves(moves);
+            moves.sortBySquares();
+        }
+
+        private void writeBits(int value, int width) throws IOException {
+            bits = bits << width | value;
+            bitCount += width;
+            while (bitCount >= 8) {
+                bitCount -= 8;
+                out.write(bits >>> bitCount);
+            }
+            bits &= (1 << bitCount) - 1;
+        }
+    }
+
+    /** Reads moves written by a {@link Writer}, playing each on its own copy of the game */
+    public static final class Reader implements Closeable {
+        private final ChessGame game;
+        private final InputStream in;
+        private final MoveList moves = new MoveList();
+        private int bits;
+        private int bitCount;
+        private boolean finished;
+
+        /**
+         * @param start the position before the first move, which is not modified
+         * @param in    the encoded moves
+         */
+        public Reader(ChessGame start, InputStream in) {
+            this.game = start.copy();
+            this.in = in;
+        }
+
+        /**
+         * Decodes and plays the next move. At the end marker the rest of the last byte is
+         * skipped, leaving the stream at whatever follows the history.
+         *
+         * @return the next move, or null after the last one
+         * @throws IOException if the stream ends early or holds an impossible index
+         */
+        public ChessMove read() throws IOException {
+            if (finished) {
+                return null;
+            }
+            moves.clear();
+            game.generateLegalMoves(moves);
+            moves.sortBySquares();
+            int index = readBits(width(moves.size() + 1));
+            if (index == moves.size()) {
+                finished = true;
+                return null;
+            }
+            if (index > moves.size()) {
+                throw new StreamCorruptedException("Move index " + index + " but only " + moves.size()
+                        + " legal moves after " + game.toFen());
+            }
+            int move = moves.get(index);
+            game.play(move);
+            return PackedMove.toChessMove(move);
+        }
+
+        /**
+         * @return a copy of the game after the moves read so far
+         */
+        public ChessGame getGame() {
+            return game.copy();
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private int readBits(int width) throws IOException {
+            while (bitCount < width) {
+                int b = in.read();
+                if (b < 0) {
+                    throw new EOFException("Move history ended without its end marker");
+                }
+                bits = bits << 8 | b;
+                bitCount += 8;
+            }
+            bitCount -= width;
+            int value = bits >>> bitCount;
+            bits &= (1 << bitCount) - 1;
+            return value;
+        }
+    }
+}
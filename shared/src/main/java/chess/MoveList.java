@@ -0,0 +1,99 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A reusable, caller-owned buffer of {@link PackedMove} codes. Generators append to
+ * the list and callers {@link #clear()} it between uses, so steady-state move
+ * generation does not allocate.
+ */
+public final class MoveList {
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(256);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, Math.max(8, size * 2));
+        }
+        moves[size++] = move;
+    }
+
+    /**
+     * @return the packed move at index
+     */
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return moves[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Empties the list, keeping its storage */
+    public void clear() {
+        size = 0;
+    }
+
+    /** Drops every move at or after index */
+    void truncate(int index) {
+        size = index;
+    }
+
+    /** Overwrites the move at index without bounds growth */
+    void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    /**
+     * Sorts the moves by start square, end square and promotion piece, ignoring flags.
+     * Legal moves from one position differ in those fields, so the order is the same
+     * whichever generator produced them.
+     */
+    void sortBySquares() {
+        for (int i = 1; i < size; i++) {
+            int move = moves[i];
+            int key = squareOrder(move);
+            int j = i - 1;
+            for (; j >= 0 && squareOrder(moves[j]) > key; j--) {
+                moves[j + 1] = moves[j];
+            }
+            moves[j + 1] = move;
+        }
+    }
+
+    /** Start square, then end square, then promotion code, as one comparable number */
+    private static int squareOrder(int move) {
+        return PackedMove.from(move) << 9 | PackedMove.to(move) << 3 | (move >>> 12 & 0x7);
+    }
+
+    /**
+     * Creates {@link ChessMove} objects for the moves in the list
+     *
+     * @return a new collection holding one ChessMove per packed move
+     */
+    public Collection<ChessMove> toChessMoves() {
+        ArrayList<ChessMove> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(PackedMove.toChessMove(moves[i]));
+        }
+        return result;
+    }
+}
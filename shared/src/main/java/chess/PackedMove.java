@@ -0,0 +1,68 @@
+package chess;
+
+/**
+ * Encodes a chess move as a single {@code int} so move generation can run without
+ * allocating {@link ChessMove} objects.
+ * <p>
+ * Layout: bits 0-5 hold the start square, bits 6-11 the end square (0-63, row-major
+ * from row 1 column 1), bits 12-14 the promotion piece ({@link ChessPiece.PieceType}
+ * ordinal + 1, or 0 for none) and bits 16-19 the flags below.
+ */
+public final class PackedMove {
+
+    /** The move captures a piece */
+    public static final int CAPTURE = 1 << 16;
+    /** The move is a pawn advancing two squares */
+    public static final int DOUBLE_PUSH = 1 << 17;
+    /** The move is an en passant capture */
+    public static final int EN_PASSANT = 1 << 18;
+    /** The move is a king castling */
+    public static final int CASTLE = 1 << 19;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private PackedMove() {
+    }
+
+    /**
+     * @param from      start square, 0-63
+     * @param to        end square, 0-63
+     * @param promotion piece to promote to, or null
+     * @param flags     any of the flag constants
+     * @return the packed move
+     */
+    public static int of(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        return from | to << 6 | (promotion == null ? 0 : promotion.ordinal() + 1) << 12 | flags;
+    }
+
+    /** Packs a move with no flags set */
+    public static int of(ChessMove move) {
+        return of(ChessBoard.square(move.getStartPosition()), ChessBoard.square(move.getEndPosition()),
+                move.getPromotionPiece(), 0);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return move >>> 6 & 0x3F;
+    }
+
+    /**
+     * @return the promotion piece, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int code = move >>> 12 & 0x7;
+        return code == 0 ? null : TYPES[code - 1];
+    }
+
+    public static boolean hasFlag(int move, int flag) {
+        return (move & flag) != 0;
+    }
+
+    /** Creates the equivalent {@link ChessMove} */
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessPosition.ofSquare(from(move)), ChessPosition.ofSquare(to(move)), promotion(move));
+    }
+}
@@ -0,0 +1,300 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth ("perft"). Known
+ * counts for standard positions make this a correctness oracle for move generation,
+ * castling, en passant and promotion, and the time taken gives a throughput number.
+ * <p>
+ * Run {@code java -cp shared/target/classes chess.Perft [depth]} to check every
+ * reference position up to the given depth (default 4), or
+ * {@code chess.Perft divide <position name> <depth>} to print the count under each
+ * root move. {@code chess.Perft scaling <depth>} times a parallel count of the
+ * starting position with 1 up to all available cores. Games use the generator named
+ * by {@value MoveGenerator#PROPERTY}, so {@code -Dchess.moveGenerator=reference}
+ * checks the reference generator instead.
+ */
+public final class Perft {
+
+    /** Plies left at which a parallel task stops splitting and counts on its own */
+    private static final int SEQUENTIAL_DEPTH = 3;
+
+    /**
+     * Standard perft positions, named as on the Chess Programming Wiki "Perft Results"
+     * page, with their published node counts
+     */
+    public enum ReferencePosition {
+        START("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -",
+                20, 400, 8_902, 197_281, 4_865_609),
+        KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+                48, 2_039, 97_862, 4_085_603),
+        POSITION_3("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -",
+                14, 191, 2_812, 43_238, 674_624),
+        POSITION_4("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq -",
+                6, 264, 9_467, 422_333),
+        POSITION_5("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ -",
+                44, 1_486, 62_379, 2_103_487),
+        POSITION_6("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - -",
+                46, 2_079, 89_890, 3_894_594);
+
+        private final String fen;
+        private final long[] counts;
+
+        ReferencePosition(String fen, long... counts) {
+            this.fen = fen;
+            this.counts = counts;
+        }
+
+        /**
+         * @return a new game set up at this position
+         */
+        public ChessGame newGame() {
+            return ChessGame.fromFen(fen);
+        }
+
+        /**
+         * @return the deepest depth with a known node count
+         */
+        public int maxDepth() {
+            return counts.length;
+        }
+
+        /**
+         * @return the known node count at depth, starting from 1
+         */
+        public long expectedNodes(int depth) {
+            return counts[depth - 1];
+        }
+    }
+
+    private Perft() {
+    }
+
+    /**
+     * Counts the positions reachable in exactly depth moves. The game is played
+     * forward and back in place and is unchanged afterward.
+     *
+     * @param game  the position to count from
+     * @param depth number of moves to look ahead
+     * @return number of leaf nodes
+     */
+    public static long perft(ChessGame game, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        return count(game, depth, buffers(depth));
+    }
+
+    /**
+     * Counts the leaf nodes under each legal root move
+     *
+     * @param game  the position to count from
+     * @param depth number of moves to look ahead, including the root move
+     * @return node count per root move, in generation order
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        Map<ChessMove, Long> result = new LinkedHashMap<>();
+        MoveList rootMoves = new MoveList();
+        game.generateLegalMoves(rootMoves);
+        MoveList[] buffers = buffers(Math.max(depth - 1, 0));
+
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int move = rootMoves.get(i);
+            long undo = game.play(move);
+            long nodes = depth <= 1 ? 1 : count(game, depth - 1, buffers);
+            game.undo(undo);
+            result.put(PackedMove.toChessMove(move), nodes);
+        }
+        return result;
+    }
+
+    /**
+     * Counts the same nodes as {@link #perft(ChessGame, int)}, splitting the upper plies
+     * into tasks on a work-stealing pool. Each task plays its moves on its own copy of
+     * the game, and the counts of the subtrees are summed as the tasks complete.
+     *
+     * @param game  the position to count from, which is not modified
+     * @param depth number of moves to look ahead
+     * @param pool  the pool to run on
+     * @return number of leaf nodes
+     */
+    public static long perft(ChessGame game, int depth, ForkJoinPool pool) {
+        return pool.invoke(new Task(game.copy(), depth, null));
+    }
+
+    /**
+     * Visits every position reachable in exactly depth moves, in parallel. The visitor
+     * is called concurrently from the pool's threads, so it must be thread-safe. The
+     * game it is handed belongs to the calling worker and is only valid during the
+     * call; copy what is needed rather than keeping a reference.
+     *
+     * @param game    the position to start from, which is not modified
+     * @param depth   number of moves to look ahead
+     * @param pool    the pool to run on
+     * @param visitor called once per leaf position
+     * @return number of positions visited
+     */
+    public static long forEachPosition(ChessGame game, int depth, ForkJoinPool pool, Consumer<ChessGame> visitor) {
+        return pool.invoke(new Task(game.copy(), depth, visitor));
+    }
+
+    /**
+     * Splits a subtree into one task per move until few plies remain, then walks the rest
+     * in place with play and undo
+     */
+    private static final class Task extends RecursiveTask<Long> {
+        private final ChessGame game;
+        private final int depth;
+        private final Consumer<ChessGame> visitor;
+
+        Task(ChessGame game, int depth, Consumer<ChessGame> visitor) {
+            this.game = game;
+            this.depth = depth;
+            this.visitor = visitor;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth <= SEQUENTIAL_DEPTH) {
+                if (visitor != null) {
+                    return visit(game, depth, buffers(depth), visitor);
+                }
+                return depth <= 0 ? 1 : count(game, depth, buffers(depth));
+            }
+
+            MoveList moves = new MoveList();
+            game.generateLegalMoves(moves);
+            List<Task> tasks = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                ChessGame child = game.copy();
+                child.play(moves.get(i));
+                tasks.add(new Task(child, depth - 1, visitor));
+            }
+
+            long nodes = 0;
+            for (Task task : invokeAll(tasks)) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+
+    private static long visit(ChessGame game, int depth, MoveList[] buffers, Consumer<ChessGame> visitor) {
+        if (depth == 0) {
+            visitor.accept(game);
+            return 1;
+        }
+
+        MoveList moves = buffers[depth - 1];
+        moves.clear();
+        game.generateLegalMoves(moves);
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            long undo = game.play(moves.get(i));
+            nodes += visit(game, depth - 1, buffers, visitor);
+            game.undo(undo);
+        }
+        return nodes;
+    }
+
+    private static long count(ChessGame game, int depth, MoveList[] buffers) {
+        MoveList moves = buffers[depth - 1];
+        moves.clear();
+        game.generateLegalMoves(moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            long undo = game.play(moves.get(i));
+            nodes += count(game, depth - 1, buffers);
+            game.undo(undo);
+        }
+        return nodes;
+    }
+
+    private static MoveList[] buffers(int depth) {
+        MoveList[] buffers = new MoveList[depth];
+        for (int i = 0; i < depth; i++) {
+            buffers[i] = new MoveList();
+        }
+        return buffers;
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 3 && args[0].equals("divide")) {
+            ChessGame game = ReferencePosition.valueOf(args[1].toUpperCase()).newGame();
+            int depth = Integer.parseInt(args[2]);
+            long total = 0;
+            for (Map.Entry<ChessMove, Long> entry : divide(game, depth).entrySet()) {
+                ChessMove move = entry.getKey();
+                System.out.println(move.getStartPosition().getRow() + "," + move.getStartPosition().getColumn()
+                        + " -> " + move.getEndPosition().getRow() + "," + move.getEndPosition().getColumn()
+                        + (move.getPromotionPiece() == null ? "" : " " + move.getPromotionPiece())
+                        + ": " + entry.getValue());
+                total += entry.getValue();
+            }
+            System.out.println("Total: " + total);
+            return;
+        }
+
+        if (args.length == 2 && args[0].equals("scaling")) {
+            printScaling(Integer.parseInt(args[1]));
+            return;
+        }
+
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        boolean allPassed = true;
+        long totalNodes = 0;
+        long totalNanos = 0;
+        for (ReferencePosition position : ReferencePosition.values()) {
+            for (int depth = 1; depth <= Math.min(maxDepth, position.maxDepth()); depth++) {
+                ChessGame game = position.newGame();
+                long start = System.nanoTime();
+                long nodes = perft(game, depth);
+                long nanos = System.nanoTime() - start;
+                boolean passed = nodes == position.expectedNodes(depth);
+                allPassed &= passed;
+                totalNodes += nodes;
+                totalNanos += nanos;
+                System.out.printf("%-10s depth %d: %,12d nodes %s %,14.0f nodes/s%n", position, depth, nodes,
+                        passed ? "ok      " : "MISMATCH", nodes * 1e9 / Math.max(nanos, 1));
+            }
+        }
+        System.out.printf("Total: %,d nodes in %.2f s, %,.0f nodes/s%n", totalNodes, totalNanos / 1e9,
+                totalNodes * 1e9 / Math.max(totalNanos, 1));
+        if (!allPassed) {
+            System.exit(1);
+        }
+    }
+
+    /** Times a parallel count of the starting position on pools of 1 up to all available cores */
+    private static void printScaling(int depth) {
+        ChessGame game = ReferencePosition.START.newGame();
+        perft(game, Math.min(depth, 4)); // warm up the JIT before timing
+        long baseline = 0;
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads++) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                long start = System.nanoTime();
+                long nodes = perft(game, depth, pool);
+                long nanos = System.nanoTime() - start;
+                if (threads == 1) {
+                    baseline = nanos;
+                }
+                System.out.printf("%2d threads: %,14d nodes in %6.2f s, %,14.0f nodes/s, speedup %.2fx%n", threads,
+                        nodes, nanos / 1e9, nodes * 1e9 / Math.max(nanos, 1), (double) baseline / nanos);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
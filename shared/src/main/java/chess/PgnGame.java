@@ -0,0 +1,75 @@
+package chess;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game from a PGN file: its tag pairs, the position it starts from, the moves of
+ * its main line and its result. Comments, annotations and variations are not kept.
+ */
+public final class PgnGame {
+
+    private final Map<String, String> tags;
+    private final ChessGame start;
+    private final List<ChessMove> moves;
+    private final String result;
+
+    /**
+     * @param tags   tag pairs in the order they should be written
+     * @param start  the position before the first move, which is copied
+     * @param moves  the moves of the main line
+     * @param result "1-0", "0-1", "1/2-1/2" or "*" for an unfinished game
+     */
+    public PgnGame(Map<String, String> tags, ChessGame start, List<ChessMove> moves, String result) {
+        this.tags = Collections.unmodifiableMap(new LinkedHashMap<>(tags));
+        this.start = start.copy();
+        this.moves = List.copyOf(moves);
+        this.result = result;
+    }
+
+    /**
+     * @return the tag pairs, such as Event, White and Black, in file order
+     */
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    /**
+     * @return the value of a tag, or null if the game does not have it
+     */
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    /**
+     * @return a copy of the position before the first move
+     */
+    public ChessGame getStartingPosition() {
+        return start.copy();
+    }
+
+    public List<ChessMove> getMoves() {
+        return moves;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    /**
+     * Plays every move through {@link ChessGame#makeMove(ChessMove)} on a copy of the
+     * starting position
+     *
+     * @return the game after the last move
+     * @throws InvalidMoveException if a move is not legal where it is played
+     */
+    public ChessGame replay() throws InvalidMoveException {
+        ChessGame game = start.copy();
+        for (ChessMove move : moves) {
+            game.makeMove(move);
+        }
+        return game;
+    }
+}
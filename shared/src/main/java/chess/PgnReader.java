@@ -0,0 +1,306 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads games one at a time from a PGN stream. The channel is read through one
+ * fixed-size buffer and the tokenizer works on its bytes directly, so memory use
+ * depends on the largest game rather than the size of the file.
+ * <p>
+ * Moves are resolved from SAN against the position they are played in. Comments,
+ * numeric annotation glyphs and variations are skipped. Tag values are decoded as
+ * UTF-8; everything else must be ASCII.
+ */
+public final class PgnReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int EOF = -1;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final StringBuilder token = new StringBuilder(16);
+    private byte[] text = new byte[64];
+    private int line = 1;
+    private boolean eof;
+
+    /**
+     * @param channel the PGN text, read sequentially from its current position
+     */
+    public PgnReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.flip();
+    }
+
+    /**
+     * Opens a PGN file for reading
+     *
+     * @param path the file to read
+     * @return a reader positioned at the first game
+     * @throws IOException if the file cannot be opened
+     */
+    public static PgnReader open(Path path) throws IOException {
+        return new PgnReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * Reads the next game. If a move cannot be resolved, the rest of the game is
+     * skipped before the error is thrown, so the caller can report it and carry on
+     * with the following game.
+     *
+     * @return the next game, or null at the end of the stream
+     * @throws IOException if the stream cannot be read or the game is not valid PGN
+     */
+    public PgnGame next() throws IOException {
+        int c = skipWhitespace();
+        if (c == EOF) {
+            return null;
+        }
+        int firstLine = line;
+        Map<String, String> tags = new LinkedHashMap<>();
+        while (c == '[') {
+            readTag(tags);
+            c = skipWhitespace();
+        }
+
+        ChessGame start;
+        String fen = tags.get("FEN");
+        try {
+            start = fen == null ? new ChessGame() : ChessGame.fromFen(fen);
+        } catch (IllegalArgumentException e) {
+            start = null;
+        }
+        ChessGame game = start == null ? null : start.copy();
+        IOException failure = start == null ? error(firstLine, "bad FEN tag \"" + fen + "\"") : null;
+
+        List<ChessMove> played = new ArrayList<>();
+        String result = "*";
+        while (true) {
+            c = skipWhitespace();
+            if (c == EOF || c == '[') {
+                break;
+            }
+            if (!readToken()) {
+                continue;
+            }
+            if (isResult(token)) {
+                result = token.toString();
+                break;
+            }
+            int moveStart = skipMoveNumber(token);
+            if (moveStart == token.length() || failure != null) {
+                continue;
+            }
+            try {
+                int move = San.parse(game, moveStart == 0 ? token : token.subSequence(moveStart, token.length()));
+                game.play(move);
+                played.add(PackedMove.toChessMove(move));
+            } catch (IllegalArgumentException e) {
+                failure = error(line, e.getMessage());
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return new PgnGame(tags, start, played, result);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads one movetext element into the token buffer, or skips it if it is a
+     * comment, annotation glyph or variation
+     *
+     * @return true if a token was read
+     */
+    private boolean readToken() throws IOException {
+        int c = read();
+        switch (c) {
+            case '{' -> {
+                skipComment();
+                return false;
+            }
+            case ';', '%' -> {
+                skipLine();
+                return false;
+            }
+            case '(' -> {
+                skipVariation();
+                return false;
+            }
+            case '$' -> {
+                while (isDigit(peek())) {
+                    read();
+                }
+                return false;
+            }
+            case ')', '}', ']' -> throw error(line, "unexpected '" + (char) c + "'");
+            default -> {
+                token.setLength(0);
+                token.append((char) c);
+                for (c = peek(); c != EOF && !isWhitespace(c) && "{}();[]$".indexOf(c) < 0; c = peek()) {
+                    token.append((char) read());
+                }
+                return true;
+            }
+        }
+    }
+
+    private void readTag(Map<String, String> tags) throws IOException {
+        int tagLine = line;
+        read(); // '['
+        skipSpaces();
+        token.setLength(0);
+        for (int c = peek(); c != EOF && !isWhitespace(c) && c != '"' && c != ']'; c = peek()) {
+            token.append((char) read());
+        }
+        skipSpaces();
+        if (token.isEmpty() || read() != '"') {
+            throw error(tagLine, "tag must be [Name \"value\"]");
+        }
+        int length = 0;
+        for (int c = read(); c != '"'; c = read()) {
+            if (c == EOF || c == '\n') {
+                throw error(tagLine, "unterminated tag value");
+            }
+            if (c == '\\') {
+                c = read();
+            }
+            if (length == text.length) {
+                text = Arrays.copyOf(text, length * 2);
+            }
+            text[length++] = (byte) c;
+        }
+        skipSpaces();
+        if (read() != ']') {
+            throw error(tagLine, "tag must end with ']'");
+        }
+        tags.put(token.toString(), new String(text, 0, length, StandardCharsets.UTF_8));
+    }
+
+    /** Returns the index after a leading move number such as "12." or "12...", or 0 if there is none */
+    private static int skipMoveNumber(CharSequence token) {
+        int i = 0;
+        while (i < token.length() && isDigit(token.charAt(i))) {
+            i++;
+        }
+        if (i < token.length() && token.charAt(i) != '.') {
+            return 0;
+        }
+        while (i < token.length() && token.charAt(i) == '.') {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isResult(CharSequence token) {
+        return switch (token.length()) {
+            case 1 -> token.charAt(0) == '*';
+            case 3 -> "1-0".contentEquals(token) || "0-1".contentEquals(token);
+            case 7 -> "1/2-1/2".contentEquals(token);
+            default -> false;
+        };
+    }
+
+    private void skipComment() throws IOException {
+        int commentLine = line;
+        for (int c = read(); c != '}'; c = read()) {
+            if (c == EOF) {
+                throw error(commentLine, "unterminated comment");
+            }
+        }
+    }
+
+    private void skipLine() throws IOException {
+        for (int c = read(); c != '\n' && c != EOF; c = read()) {
+            // skip to the end of the line
+        }
+    }
+
+    private void skipVariation() throws IOException {
+        int variationLine = line;
+        int depth = 1;
+        while (depth > 0) {
+            int c = read();
+            switch (c) {
+                case EOF -> throw error(variationLine, "unterminated variation");
+                case '(' -> depth++;
+                case ')' -> depth--;
+                case '{' -> skipComment();
+                case ';' -> skipLine();
+                default -> {
+                }
+            }
+        }
+    }
+
+    /** Skips whitespace and returns the next byte without consuming it */
+    private int skipWhitespace() throws IOException {
+        int c = peek();
+        while (c != EOF && isWhitespace(c)) {
+            read();
+            c = peek();
+        }
+        return c;
+    }
+
+    private void skipSpaces() throws IOException {
+        while (peek() == ' ' || peek() == '\t') {
+            read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (!fill()) {
+            return EOF;
+        }
+        int c = buffer.get() & 0xFF;
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        return fill() ? buffer.get(buffer.position()) & 0xFF : EOF;
+    }
+
+    /** Makes sure at least one byte is buffered, returning false at the end of the stream */
+    private boolean fill() throws IOException {
+        while (!buffer.hasRemaining()) {
+            if (eof) {
+                return false;
+            }
+            buffer.clear();
+            eof = channel.read(buffer) < 0;
+            buffer.flip();
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static IOException error(int line, String message) {
+        return new IOException("Invalid PGN at line " + line + ", " + message);
+    }
+}
@@ -0,0 +1,172 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Writes games as PGN through one fixed-size buffer. Moves are written in SAN with
+ * move numbers and the movetext is wrapped at {@value #LINE_WIDTH} columns. A game that
+ * does not start from the initial position gets SetUp and FEN tags if it has none.
+ */
+public final class PgnWriter implements Closeable, Flushable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int LINE_WIDTH = 80;
+    private static final String INITIAL_FEN = new ChessGame().toFen();
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final StringBuilder token = new StringBuilder(16);
+    private final MoveList moves = new MoveList();
+    private int column;
+
+    /**
+     * @param channel where to write the PGN text
+     */
+    public PgnWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Creates or truncates a PGN file for writing
+     *
+     * @param path the file to write
+     * @return a writer at the start of the file
+     * @throws IOException if the file cannot be opened
+     */
+    public static PgnWriter create(Path path) throws IOException {
+        return new PgnWriter(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    /**
+     * Writes one game followed by a blank line. Every move is checked before anything
+     * is written, so a game with an illegal move leaves the output untouched.
+     *
+     * @param pgn the game to write
+     * @throws InvalidMoveException if a move is not legal where it is played
+     * @throws IOException          if the channel cannot be written
+     */
+    public void write(PgnGame pgn) throws InvalidMoveException, IOException {
+        ChessGame game = pgn.getStartingPosition();
+        moves.clear();
+        for (ChessMove move : pgn.getMoves()) {
+            int packed = legalMove(game, move);
+            moves.add(packed);
+            game.play(packed);
+        }
+
+        game = pgn.getStartingPosition();
+        for (Map.Entry<String, String> tag : pgn.getTags().entrySet()) {
+            writeTag(tag.getKey(), tag.getValue());
+        }
+        String fen = game.toFen();
+        if (!fen.equals(INITIAL_FEN) && pgn.getTag("FEN") == null) {
+            writeTag("SetUp", "1");
+            writeTag("FEN", fen);
+        }
+        put('\n');
+
+        column = 0;
+        boolean first = true;
+        for (int i = 0; i < moves.size(); i++) {
+            int packed = moves.get(i);
+            token.setLength(0);
+            if (game.getTeamTurn() == ChessGame.TeamColor.WHITE || first) {
+                token.append(game.getFullmoveNumber())
+                        .append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? ". " : "... ");
+            }
+            San.append(token, game, packed);
+            writeToken(token);
+            game.play(packed);
+            first = false;
+        }
+        token.setLength(0);
+        token.append(pgn.getResult() == null ? "*" : pgn.getResult());
+        writeToken(token);
+        put('\n');
+        put('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /** Flushes buffered text and closes the channel */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /** Packs a move after checking that it is legal for the side to move */
+    private static int legalMove(ChessGame game, ChessMove move) throws InvalidMoveException {
+        if (ChessGame.onBoard(move.getStartPosition()) && ChessGame.onBoard(move.getEndPosition())) {
+            int packed = PackedMove.of(move);
+            if (game.isLegal(packed)) {
+                return packed;
+            }
+        }
+        throw new InvalidMoveException("Illegal move for " + game.getTeamTurn() + ": " + move);
+    }
+
+    /** Writes a token, starting a new line first if it would run past the line width */
+    private void writeToken(CharSequence text) throws IOException {
+        if (column > 0 && column + 1 + text.length() > LINE_WIDTH) {
+            put('\n');
+            column = 0;
+        } else if (column > 0) {
+            put(' ');
+            column++;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            put(text.charAt(i));
+        }
+        column += text.length();
+    }
+
+    private void writeTag(String name, String value) throws IOException {
+        put('[');
+        for (int i = 0; i < name.length(); i++) {
+            put(name.charAt(i));
+        }
+        put(' ');
+        put('"');
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            if (b == '"' || b == '\\') {
+                put('\\');
+            }
+            put(b);
+        }
+        put('"');
+        put(']');
+        put('\n');
+    }
+
+    private void put(char c) throws IOException {
+        put((byte) c);
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(b);
+    }
+}
@@ -0,0 +1,94 @@
+package chess;
+
+/**
+ * The straightforward generator: each piece's moves come from
+ * {@link ChessPiece#generateMoves}, and each one is played on the board, kept only if
+ * the team's king is not attacked afterward, and taken back. Castling and en passant
+ * are added by the same rules, one condition at a time. Slow, but simple enough to
+ * trust, so other generators are checked against it.
+ */
+final class ReferenceMoveGenerator implements MoveGenerator {
+
+    static final ReferenceMoveGenerator INSTANCE = new ReferenceMoveGenerator();
+
+    private ReferenceMoveGenerator() {
+    }
+
+    @Override
+    public void generate(ChessBoard board, ChessGame.TeamColor color, int castlingRights, int enPassantSquare,
+                         long fromMask, MoveList moves) {
+        ChessGame.TeamColor enemy = color == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long pieces = board.getOccupancy(color) & fromMask;
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            ChessPiece piece = ChessPiece.ofIndex(board.pieceIndexAt(from));
+
+            int first = moves.size();
+            piece.generateMoves(board, from, moves);
+            if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+                addCastlingMoves(board, color, enemy, from, castlingRights, moves);
+            } else if (piece.getPieceType() == ChessPiece.PieceType.PAWN && enPassantSquare >= 0) {
+                addEnPassantMove(board, color, from, enPassantSquare, moves);
+            }
+
+            int kept = first;
+            for (int i = first; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if (!leavesKingInCheck(board, color, enemy, move)) {
+                    moves.set(kept++, move);
+                }
+            }
+            moves.truncate(kept);
+        }
+    }
+
+    private static boolean leavesKingInCheck(ChessBoard board, ChessGame.TeamColor color,
+                                             ChessGame.TeamColor enemy, int move) {
+        long undo = board.makeMove(move);
+        int kingSquare = board.kingSquare(color);
+        boolean inCheck = kingSquare >= 0 && ChessGame.isSquareAttacked(board, kingSquare, enemy);
+        board.unmakeMove(undo);
+        return inCheck;
+    }
+
+    /** Adds castling moves whose king passes only through empty, unattacked squares; the landing square is checked by the caller */
+    private static void addCastlingMoves(ChessBoard board, ChessGame.TeamColor color, ChessGame.TeamColor enemy,
+                                         int from, int castlingRights, MoveList moves) {
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        int home = white ? 4 : 60;
+        if (from != home || ChessGame.isSquareAttacked(board, home, enemy)) {
+            return;
+        }
+        int rook = ChessBoard.pieceIndex(color, ChessPiece.PieceType.ROOK);
+
+        if ((castlingRights & (white ? ChessGame.WHITE_KINGSIDE : ChessGame.BLACK_KINGSIDE)) != 0
+                && board.pieceIndexAt(home + 3) == rook
+                && board.pieceIndexAt(home + 1) < 0 && board.pieceIndexAt(home + 2) < 0
+                && !ChessGame.isSquareAttacked(board, home + 1, enemy)) {
+            moves.add(PackedMove.of(home, home + 2, null, PackedMove.CASTLE));
+        }
+        if ((castlingRights & (white ? ChessGame.WHITE_QUEENSIDE : ChessGame.BLACK_QUEENSIDE)) != 0
+                && board.pieceIndexAt(home - 4) == rook
+                && board.pieceIndexAt(home - 1) < 0 && board.pieceIndexAt(home - 2) < 0
+                && board.pieceIndexAt(home - 3) < 0
+                && !ChessGame.isSquareAttacked(board, home - 1, enemy)) {
+            moves.add(PackedMove.of(home, home - 2, null, PackedMove.CASTLE));
+        }
+    }
+
+    /** Adds the en passant capture if this pawn stands beside the pawn that just advanced two squares */
+    private static void addEnPassantMove(ChessBoard board, ChessGame.TeamColor color, int from,
+                                         int enPassantSquare, MoveList moves) {
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        int capturedSquare = white ? enPassantSquare - 8 : enPassantSquare + 8;
+        int enemyPawn = ChessBoard.pieceIndex(white ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE,
+                ChessPiece.PieceType.PAWN);
+        if (enPassantSquare / 8 == (white ? 5 : 2) && from / 8 == capturedSquare / 8
+                && Math.abs(from % 8 - capturedSquare % 8) == 1
+                && board.pieceIndexAt(capturedSquare) == enemyPawn) {
+            moves.add(PackedMove.of(from, enPassantSquare, null, PackedMove.CAPTURE | PackedMove.EN_PASSANT));
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package chess;
+
+/**
+ * Reads and writes moves in Standard Algebraic Notation against the game they are
+ * played in. Parsing accepts the usual variations: check and annotation suffixes,
+ * {@code 0-0} castling, an optional {@code =} before the promotion piece and an
+ * optional piece letter {@code P} for pawns.
+ * <p>
+ * Neither direction generates the whole move list. The pieces that could be meant by
+ * a move, or that make one ambiguous, are found by looking backward from the
+ * destination square through the attack tables ({@link #sources}); only those few
+ * candidates are then checked for legality.
+ */
+final class San {
+
+    /** Piece letters in piece type order */
+    private static final String LETTERS = "KQBNRP";
+    private static final int KING = ChessPiece.PieceType.KING.ordinal();
+    private static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long RANK_1 = 0xFFL;
+
+    private San() {
+    }
+
+    /**
+     * Finds the legal move a SAN string names
+     *
+     * @param game the position the move is played from
+     * @param san  the move text
+     * @return the packed move, without flags
+     * @throws IllegalArgumentException if the text names no legal move or more than one
+     */
+    static int parse(ChessGame game, CharSequence san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        if (end < 2) {
+            throw error(san, "too short");
+        }
+        ChessBoard board = game.getBoard();
+
+        char first = san.charAt(0);
+        if (first == 'O' || first == '0') {
+            boolean kingside = isCastle(san, end, first, 3);
+            if (!kingside && !isCastle(san, end, first, 5)) {
+                throw error(san, "castling must be O-O or O-O-O");
+            }
+            int king = board.kingSquare(game.getTeamTurn());
+            int move = PackedMove.of(king, king + (kingside ? 2 : -2), null, 0);
+            if (king % 8 != 4 || !game.isLegal(move)) {
+                throw error(san, "castling is not legal");
+            }
+            return move;
+        }
+
+        int start = 0;
+        int type = PAWN;
+        int letter = LETTERS.indexOf(first);
+        if (letter >= 0) {
+            type = letter;
+            start = 1;
+        }
+
+        int promotion = 0;
+        int last = LETTERS.indexOf(san.charAt(end - 1));
+        if (last > KING && last < PAWN) {
+            promotion = last + 1;
+            end--;
+            if (end > 0 && san.charAt(end - 1) == '=') {
+                end--;
+            }
+        }
+        if (end - start < 2) {
+            throw error(san, "missing destination square");
+        }
+        int to = square(san, end - 2);
+        if (to < 0) {
+            throw error(san, "bad destination square");
+        }
+
+        long candidates = sources(board, game.getTeamTurn(), type, to);
+        boolean capture = false;
+        boolean file = false;
+        for (int i = start; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                candidates &= FILE_A << (c - 'a');
+                file = true;
+            } else if (c >= '1' && c <= '8') {
+                candidates &= RANK_1 << 8 * (c - '1');
+            } else if (c == 'x' || c == ':') {
+                capture = true;
+            } else if (c != '-') {
+                throw error(san, "unexpected '" + c + "'");
+            }
+        }
+        if (type == PAWN && capture) {
+            candidates &= pawnCaptureSources(game.getTeamTurn(), to);
+        } else if (type == PAWN && !file) {
+            // A bare "e4" is a push; a capture onto the square must be written "dxe4"
+            candidates &= ~pawnCaptureSources(game.getTeamTurn(), to);
+        }
+
+        int found = -1;
+        for (; candidates != 0; candidates &= candidates - 1) {
+            int move = Long.numberOfTrailingZeros(candidates) | to << 6 | promotion << 12;
+            if (!game.isLegal(move)) {
+                continue;
+            }
+            if (found >= 0) {
+                throw error(san, "ambiguous");
+            }
+            found = move;
+        }
+        if (found < 0) {
+            throw error(san, "no legal move matches");
+        }
+        return found;
+    }
+
+    /**
+     * Finds the pieces of one type and color that could move to a square: the reverse
+     * of their attack pattern from that square, plus the squares behind it for pawn
+     * pushes. The result can include pinned pieces and, for pawns, pushes onto an
+     * occupied square or diagonal steps with nothing to capture; callers check each
+     * candidate for legality.
+     */
+    static long sources(ChessBoard board, ChessGame.TeamColor color, int type, int to) {
+        long pieces = board.getBitboard(color, ChessPiece.PieceType.values()[type]);
+        long occupied = board.getOccupancy();
+        return pieces & switch (ChessPiece.PieceType.values()[type]) {
+            case KING -> AttackTables.KING[to];
+            case QUEEN -> AttackTables.rookAttacks(to, occupied) | AttackTables.bishopAttacks(to, occupied);
+            case BISHOP -> AttackTables.bishopAttacks(to, occupied);
+            case KNIGHT -> AttackTables.KNIGHT[to];
+            case ROOK -> AttackTables.rookAttacks(to, occupied);
+            case PAWN -> {
+                int forward = color == ChessGame.TeamColor.WHITE ? 8 : -8;
+                int behind = to - forward;
+                long pushes = 0;
+                if (behind >= 0 && behind < 64) {
+                    pushes = 1L << behind;
+                    int doubleFrom = behind - forward;
+                    if ((occupied & 1L << behind) == 0 && doubleFrom >= 0 && doubleFrom < 64) {
+                        pushes |= 1L << doubleFrom;
+                    }
+                }
+                yield pushes | pawnCaptureSources(color, to);
+            }
+        };
+    }
+
+    /** Squares from which a pawn of the given color would capture onto a square */
+    private static long pawnCaptureSources(ChessGame.TeamColor color, int to) {
+        return AttackTables.PAWN[1 - color.ordinal()][to];
+    }
+
+    /**
+     * Appends the SAN for a move, including the check or checkmate suffix
+     *
+     * @param out  where to append
+     * @param game the position the move is played from, which is unchanged afterward
+     * @param move a legal packed move
+     */
+    static void append(StringBuilder out, ChessGame game, int move) {
+        ChessBoard board = game.getBoard();
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int type = board.pieceIndexAt(from) % 6;
+
+        if (type == KING && Math.abs(to - from) == 2) {
+            out.append(to > from ? "O-O" : "O-O-O");
+        } else {
+            boolean capture = board.pieceIndexAt(to) >= 0 || (type == PAWN && from % 8 != to % 8);
+            if (type == PAWN) {
+                if (capture) {
+                    out.append((char) ('a' + from % 8));
+                }
+            } else {
+                out.append(LETTERS.charAt(type));
+                appendDisambiguation(out, game, from, to, type);
+            }
+            if (capture) {
+                out.append('x');
+            }
+            out.append((char) ('a' + to % 8)).append((char) ('1' + to / 8));
+            ChessPiece.PieceType promotion = PackedMove.promotion(move);
+            if (promotion != null) {
+                out.append('=').append(LETTERS.charAt(promotion.ordinal()));
+            }
+        }
+
+        long undo = game.play(move);
+        ChessGame.GameStatus status = game.getGameStatus();
+        game.undo(undo);
+        if (status == ChessGame.GameStatus.CHECKMATE) {
+            out.append('#');
+        } else if (status == ChessGame.GameStatus.CHECK) {
+            out.append('+');
+        }
+    }
+
+    /** Adds the start file, rank or both when another piece of the same type can reach the square */
+    private static void appendDisambiguation(StringBuilder out, ChessGame game, int from, int to, int type) {
+        long others = sources(game.getBoard(), game.getTeamTurn(), type, to) & ~(1L << from);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (; others != 0; others &= others - 1) {
+            int other = Long.numberOfTrailingZeros(others);
+            if (game.isLegal(other | to << 6)) {
+                ambiguous = true;
+                sameFile |= other % 8 == from % 8;
+                sameRank |= other / 8 == from / 8;
+            }
+        }
+        if (ambiguous && (!sameFile || sameRank)) {
+            out.append((char) ('a' + from % 8));
+        }
+        if (ambiguous && sameFile) {
+            out.append((char) ('1' + from / 8));
+        }
+    }
+
+    /** Checks for O-O (length 3) or O-O-O (length 5) written with the given letter */
+    private static boolean isCastle(CharSequence san, int end, char letter, int length) {
+        if (end != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (san.charAt(i) != (i % 2 == 0 ? letter : '-')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Reads a square such as "e4" at index, or returns -1 */
+    private static int square(CharSequence san, int index) {
+        char file = san.charAt(index);
+        char rank = san.charAt(index + 1);
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            return -1;
+        }
+        return (rank - '1') * 8 + (file - 'a');
+    }
+
+    private static IllegalArgumentException error(CharSequence san, String message) {
+        return new IllegalArgumentException("Invalid SAN move, " + message + ": " + san);
+    }
+}
@@ -0,0 +1,273 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Answers every call with a primary generator while checking a sample of the answers
+ * against a reference generator in the background.
+ * <p>
+ * For a sampled call the board is copied and the primary's result saved, and the
+ * comparison is queued on a separate executor, so the caller waits only for the copy.
+ * When the executor's queue is full the sample is dropped rather than slowing the
+ * caller. Mismatches are counted, the most recent ones kept with the position in FEN,
+ * and passed to an optional listener.
+ */
+public final class ShadowMoveGenerator implements MoveGenerator {
+
+    /** System property with the fraction of calls the shared shadow generator samples */
+    public static final String SAMPLE_RATE_PROPERTY = "chess.moveGenerator.shadowSampleRate";
+
+    private static final int MAX_RECORDED = 100;
+    private static final int QUEUE_CAPACITY = 1024;
+
+    /**
+     * A call where the primary and reference generators disagreed
+     *
+     * @param position the position in FEN
+     * @param call     what was asked: "generate" with the start squares, or "isLegal" with the move
+     * @param missing  moves only the reference generator allowed
+     * @param extra    moves only the primary generator allowed
+     */
+    public record Mismatch(String position, String call, Set<ChessMove> missing, Set<ChessMove> extra) {
+    }
+
+    private static volatile ShadowMoveGenerator shared;
+
+    private final MoveGenerator primary;
+    private final MoveGenerator reference;
+    private final double sampleRate;
+    private final Executor executor;
+    private final Consumer<Mismatch> listener;
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder mismatchCount = new LongAdder();
+    private final Deque<Mismatch> recent = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Creates a shadow generator that verifies on one background daemon thread
+     *
+     * @param primary    the generator whose answers are returned
+     * @param reference  the generator the samples are checked against
+     * @param sampleRate fraction of calls to check, from 0 to 1
+     */
+    public ShadowMoveGenerator(MoveGenerator primary, MoveGenerator reference, double sampleRate) {
+        this(primary, reference, sampleRate, null, null);
+    }
+
+    /**
+     * @param primary    the generator whose answers are returned
+     * @param reference  the generator the samples are checked against
+     * @param sampleRate fraction of calls to check, from 0 to 1
+     * @param executor   where the checks run, or null for one background daemon thread
+     * @param listener   called with each mismatch on the executor's thread, or null
+     */
+    public ShadowMoveGenerator(MoveGenerator primary, MoveGenerator reference, double sampleRate,
+                               Executor executor, Consumer<Mismatch> listener) {
+        if (!(sampleRate >= 0 && sampleRate <= 1)) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1: " + sampleRate);
+        }
+        this.primary = primary;
+        this.reference = reference;
+        this.sampleRate = sampleRate;
+        this.executor = executor != null ? executor : backgroundExecutor();
+        this.listener = listener;
+    }
+
+    /**
+     * The shared instance selected by the "shadow" generator name, created on first use.
+     * A bad sample rate property fails that call without leaving anything half set up,
+     * so a later call can succeed once the property is fixed.
+     *
+     * @throws IllegalArgumentException if {@value #SAMPLE_RATE_PROPERTY} is not a number
+     *                                  from 0 to 1
+     */
+    static ShadowMoveGenerator shared() {
+        ShadowMoveGenerator instance = shared;
+        if (instance == null) {
+            synchronized (ShadowMoveGenerator.class) {
+                if (shared == null) {
+                    shared = new ShadowMoveGenerator(MoveGenerator.fast(), MoveGenerator.reference(),
+                            sampleRateFromProperty());
+                }
+                instance = shared;
+            }
+        }
+        return instance;
+    }
+
+    /** Reads {@value #SAMPLE_RATE_PROPERTY}, defaulting to 0.01 when it is not set */
+    static double sampleRateFromProperty() {
+        String value = System.getProperty(SAMPLE_RATE_PROPERTY, "0.01").trim();
+        double rate;
+        try {
+            rate = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + SAMPLE_RATE_PROPERTY + ": " + value, e);
+        }
+        if (!(rate >= 0 && rate <= 1)) {
+            throw new IllegalArgumentException(SAMPLE_RATE_PROPERTY + " must be between 0 and 1: " + value);
+        }
+        return rate;
+    }
+
+    @Override
+    public void generate(ChessBoard board, ChessGame.TeamColor color, int castlingRights, int enPassantSquare,
+                         long fromMask, MoveList moves) {
+        int first = moves.size();
+        primary.generate(board, color, castlingRights, enPassantSquare, fromMask, moves);
+        if (!sample()) {
+            return;
+        }
+
+        ChessBoard snapshot = board.copy();
+        int[] answer = new int[moves.size() - first];
+        for (int i = 0; i < answer.length; i++) {
+            answer[i] = moves.get(first + i);
+        }
+        submit(() -> {
+            MoveList expected = new MoveList();
+            reference.generate(snapshot, color, castlingRights, enPassantSquare, fromMask, expected);
+            Set<ChessMove> expectedMoves = toSet(expected);
+            Set<ChessMove> actualMoves = new HashSet<>();
+            for (int move : answer) {
+                actualMoves.add(PackedMove.toChessMove(move));
+            }
+            if (!expectedMoves.equals(actualMoves)) {
+                Set<ChessMove> missing = new HashSet<>(expectedMoves);
+                missing.removeAll(actualMoves);
+                Set<ChessMove> extra = new HashSet<>(actualMoves);
+                extra.removeAll(expectedMoves);
+                record(new Mismatch(fen(snapshot, color, castlingRights, enPassantSquare),
+                        "generate " + describeSquares(fromMask), missing, extra));
+            }
+        });
+    }
+
+    @Override
+    public boolean isLegal(ChessBoard board, ChessGame.TeamColor color, int castlingRights, int enPassantSquare,
+                           int move) {
+        boolean legal = primary.isLegal(board, color, castlingRights, enPassantSquare, move);
+        if (!sample()) {
+            return legal;
+        }
+
+        ChessBoard snapshot = board.copy();
+        submit(() -> {
+            boolean expected = reference.isLegal(snapshot, color, castlingRights, enPassantSquare, move);
+            if (expected != legal) {
+                Set<ChessMove> changed = Set.of(PackedMove.toChessMove(move));
+                record(new Mismatch(fen(snapshot, color, castlingRights, enPassantSquare),
+                        "isLegal " + PackedMove.toChessMove(move), expected ? changed : Set.of(),
+                        expected ? Set.of() : changed));
+            }
+        });
+        return legal;
+    }
+
+    /**
+     * @return number of calls sampled for checking, including dropped samples
+     */
+    public long getSampledCount() {
+        return sampled.sum();
+    }
+
+    /**
+     * @return number of samples skipped because the executor was saturated
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return number of mismatches found
+     */
+    public long getMismatchCount() {
+        return mismatchCount.sum();
+    }
+
+    /**
+     * @return the most recent mismatches, oldest first
+     */
+    public Collection<Mismatch> getRecentMismatches() {
+        return new ArrayList<>(recent);
+    }
+
+    private boolean sample() {
+        if (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return false;
+        }
+        sampled.increment();
+        return true;
+    }
+
+    private void submit(Runnable check) {
+        try {
+            executor.execute(check);
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+        }
+    }
+
+    private void record(Mismatch mismatch) {
+        mismatchCount.increment();
+        recent.addLast(mismatch);
+        while (recent.size() > MAX_RECORDED) {
+            recent.pollFirst();
+        }
+        if (listener != null) {
+            listener.accept(mismatch);
+        }
+    }
+
+    private static Executor backgroundExecutor() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "move-generator-shadow");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static Set<ChessMove> toSet(MoveList moves) {
+        Set<ChessMove> result = new HashSet<>();
+        for (int i = 0; i < moves.size(); i++) {
+            result.add(PackedMove.toChessMove(moves.get(i)));
+        }
+        return result;
+    }
+
+    private static String describeSquares(long squares) {
+        if (squares == -1L) {
+            return "all";
+        }
+        List<ChessPosition> positions = new ArrayList<>();
+        while (squares != 0) {
+            positions.add(ChessPosition.ofSquare(Long.numberOfTrailingZeros(squares)));
+            squares &= squares - 1;
+        }
+        return positions.toString();
+    }
+
+    /** Writes the position handed to the generator in FEN, without the move counters */
+    private static String fen(ChessBoard board, ChessGame.TeamColor color, int castlingRights, int enPassantSquare) {
+        StringBuilder fen = new StringBuilder(80);
+        Fen.appendPosition(fen, board, color, castlingRights, enPassantSquare);
+        return fen.toString();
+    }
+}
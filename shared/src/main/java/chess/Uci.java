@@ -0,0 +1,63 @@
+package chess;
+
+/**
+ * Reads and writes moves in the long algebraic form used by the Universal Chess
+ * Interface: start square, end square and an optional lowercase promotion letter
+ */
+final class Uci {
+
+    /** Promotion letters in piece type order; kings and pawns cannot be promoted to */
+    private static final String LETTERS = "kqbnrp";
+
+    private Uci() {
+    }
+
+    /**
+     * @return the packed move, without flags
+     * @throws IllegalArgumentException if the text is not a well-formed UCI move
+     */
+    static int parse(CharSequence uci) {
+        if (uci.length() != 4 && uci.length() != 5) {
+            throw error(uci, "must be 4 or 5 characters");
+        }
+        int from = square(uci, 0);
+        int to = square(uci, 2);
+        int promotion = 0;
+        if (uci.length() == 5) {
+            int letter = LETTERS.indexOf(Character.toLowerCase(uci.charAt(4)));
+            if (letter <= ChessPiece.PieceType.KING.ordinal() || letter >= ChessPiece.PieceType.PAWN.ordinal()) {
+                throw error(uci, "promotion must be q, r, b or n");
+            }
+            promotion = letter + 1;
+        }
+        return from | to << 6 | promotion << 12;
+    }
+
+    static String format(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        char[] uci = new char[promotion == null ? 4 : 5];
+        uci[0] = (char) ('a' + from % 8);
+        uci[1] = (char) ('1' + from / 8);
+        uci[2] = (char) ('a' + to % 8);
+        uci[3] = (char) ('1' + to / 8);
+        if (promotion != null) {
+            uci[4] = LETTERS.charAt(promotion.ordinal());
+        }
+        return new String(uci);
+    }
+
+    private static int square(CharSequence uci, int index) {
+        char file = uci.charAt(index);
+        char rank = uci.charAt(index + 1);
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            throw error(uci, "bad square");
+        }
+        return (rank - '1') * 8 + (file - 'a');
+    }
+
+    private static IllegalArgumentException error(CharSequence uci, String message) {
+        return new IllegalArgumentException("Invalid UCI move, " + message + ": " + uci);
+    }
+}
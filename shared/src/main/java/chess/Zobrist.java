@@ -0,0 +1,39 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of the keys for each
+ * piece on its square, the side to move, the castling rights and the en passant file,
+ * so each of those can be added or removed from a key with a single XOR.
+ */
+final class Zobrist {
+
+    /** Key per piece index (color * 6 + type) and square */
+    static final long[][] PIECE_SQUARE = new long[12][64];
+    /** Mixed in when black is to move */
+    static final long BLACK_TO_MOVE;
+    /** Key per 4-bit castling rights mask */
+    static final long[] CASTLING = new long[16];
+    /** Key per file (0-7) of the en passant target square */
+    static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x2B7E1516_28AED2A6L);
+        for (long[] keys : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                keys[square] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+        for (int i = 1; i < CASTLING.length; i++) {
+            CASTLING[i] = random.nextLong();
+        }
+        for (int file = 0; file < EN_PASSANT_FILE.length; file++) {
+            EN_PASSANT_FILE[file] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+}
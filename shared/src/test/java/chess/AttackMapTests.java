@@ -0,0 +1,77 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class AttackMapTests {
+
+    @Test
+    @DisplayName("Incremental Counts Match a Fresh Scan Over Random Games")
+    public void matchesFreshScan() {
+        Random random = new Random(3);
+        for (Perft.ReferencePosition reference : Perft.ReferencePosition.values()) {
+            ChessGame game = reference.newGame();
+            game.getBoard().setAttackTracking(true);
+            MoveList moves = new MoveList();
+            for (int ply = 0; ply < 60; ply++) {
+                assertMatchesFreshScan(game.getBoard());
+                moves.clear();
+                game.generateLegalMoves(moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                long undo = game.play(moves.get(random.nextInt(moves.size())));
+                if (random.nextInt(4) == 0) {
+                    game.undo(undo);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Perft Is Unchanged With Attack Tracking")
+    public void perftWithTracking() {
+        ChessGame game = Perft.ReferencePosition.KIWIPETE.newGame();
+        game.getBoard().setAttackTracking(true);
+        Assertions.assertEquals(Perft.ReferencePosition.KIWIPETE.expectedNodes(3), Perft.perft(game, 3));
+        assertMatchesFreshScan(game.getBoard());
+        Assertions.assertTrue(game.getBoard().copy().isAttackTracking());
+    }
+
+    @Test
+    @DisplayName("Counts Follow Pieces Added and Removed")
+    public void addAndRemove() {
+        ChessBoard board = new ChessBoard();
+        board.setAttackTracking(true);
+        board.addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        board.addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        Assertions.assertEquals(2, board.getAttackerCount(new ChessPosition(1, 8), ChessGame.TeamColor.WHITE));
+
+        board.addPiece(new ChessPosition(1, 4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        Assertions.assertEquals(1, board.getAttackerCount(new ChessPosition(1, 8), ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(1, board.getAttackerCount(new ChessPosition(1, 4), ChessGame.TeamColor.WHITE));
+
+        board.addPiece(new ChessPosition(1, 4), null);
+        Assertions.assertEquals(2, board.getAttackerCount(new ChessPosition(1, 8), ChessGame.TeamColor.WHITE));
+        assertMatchesFreshScan(board);
+    }
+
+    private static void assertMatchesFreshScan(ChessBoard board) {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            long attacked = 0;
+            for (int square = 0; square < 64; square++) {
+                int expected = Long.bitCount(LegalMoveGenerator.attackersTo(board, square, color,
+                        board.getOccupancy()));
+                Assertions.assertEquals(expected, board.getAttackerCount(ChessPosition.ofSquare(square), color),
+                        color + " attackers of square " + square);
+                if (expected > 0) {
+                    attacked |= 1L << square;
+                }
+            }
+            Assertions.assertEquals(attacked, board.getAttackedSquares(color));
+        }
+    }
+}
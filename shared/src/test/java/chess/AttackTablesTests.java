@@ -0,0 +1,43 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+public class AttackTablesTests {
+
+    @Test
+    @DisplayName("Magic Lookups Match Ray Walking")
+    public void magicMatchesRays() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int square = 0; square < 64; square++) {
+            for (int i = 0; i < 200; i++) {
+                long occupied = random.nextLong() & random.nextLong();
+                Assertions.assertEquals(AttackTables.rookAttacksSlow(square, occupied),
+                        AttackTables.rookAttacks(square, occupied), "rook on " + square);
+                Assertions.assertEquals(AttackTables.bishopAttacksSlow(square, occupied),
+                        AttackTables.bishopAttacks(square, occupied), "bishop on " + square);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Leaper Tables")
+    public void leaperTables() {
+        Assertions.assertEquals(2, Long.bitCount(AttackTables.KNIGHT[0]));
+        Assertions.assertEquals(8, Long.bitCount(AttackTables.KNIGHT[27]));
+        Assertions.assertEquals(3, Long.bitCount(AttackTables.KING[63]));
+        Assertions.assertEquals(1L << 9, AttackTables.PAWN[ChessGame.TeamColor.WHITE.ordinal()][0]);
+        Assertions.assertEquals((1L << 54) | (1L << 52), AttackTables.PAWN[ChessGame.TeamColor.BLACK.ordinal()][61]);
+    }
+
+    @Test
+    @DisplayName("Initialization Cost Is Bounded")
+    public void initializationCost() {
+        Assertions.assertTrue(AttackTables.INIT_NANOS > 0);
+        Assertions.assertTrue(AttackTables.INIT_NANOS < 2_000_000_000L,
+                "attack table initialization took " + AttackTables.INIT_NANOS / 1_000_000 + "ms");
+    }
+}
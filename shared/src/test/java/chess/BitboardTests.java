@@ -0,0 +1,127 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class BitboardTests {
+
+    @Test
+    @DisplayName("Starting Board Occupancy")
+    public void startingOccupancy() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+
+        Assertions.assertEquals(0x000000000000FFFFL, board.getOccupancy(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(0xFFFF000000000000L, board.getOccupancy(ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(0xFFFF00000000FFFFL, board.getOccupancy());
+        Assertions.assertEquals(1L << 4, board.getBitboard(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        Assertions.assertEquals(0x00FF000000000000L,
+                board.getBitboard(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+    }
+
+    @Test
+    @DisplayName("Replacing and Removing Pieces")
+    public void replaceAndRemove() {
+        ChessBoard board = new ChessBoard();
+        ChessPosition position = new ChessPosition(4, 4);
+
+        board.addPiece(position, new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        board.addPiece(position, new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        Assertions.assertEquals(new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT),
+                board.getPiece(position));
+        Assertions.assertEquals(0L, board.getOccupancy(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(0L, board.getBitboard(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+
+        board.addPiece(position, null);
+        Assertions.assertNull(board.getPiece(position));
+        Assertions.assertEquals(0L, board.getOccupancy());
+        Assertions.assertEquals(new ChessBoard(), board);
+    }
+
+    @Test
+    @DisplayName("Copy Is Independent")
+    public void copyIsIndependent() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessBoard copy = board.copy();
+        Assertions.assertEquals(board, copy);
+        Assertions.assertEquals(board.hashCode(), copy.hashCode());
+
+        copy.addPiece(new ChessPosition(2, 5), null);
+        Assertions.assertNotEquals(board, copy);
+        Assertions.assertNotNull(board.getPiece(new ChessPosition(2, 5)));
+    }
+
+    @Test
+    @DisplayName("Make and Unmake Restore the Board")
+    public void makeUnmakeRoundTrip() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(1, 8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        board.addPiece(new ChessPosition(5, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        board.addPiece(new ChessPosition(5, 4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        board.addPiece(new ChessPosition(7, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        board.addPiece(new ChessPosition(8, 2), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        ChessBoard original = board.copy();
+
+        long castle = board.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 7), null));
+        Assertions.assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK),
+                board.getPiece(new ChessPosition(1, 6)));
+        long enPassant = board.makeMove(new ChessMove(new ChessPosition(5, 5), new ChessPosition(6, 4), null));
+        Assertions.assertNull(board.getPiece(new ChessPosition(5, 4)));
+        long promotion = board.makeMove(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 2),
+                ChessPiece.PieceType.KNIGHT));
+        Assertions.assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT),
+                board.getPiece(new ChessPosition(8, 2)));
+
+        board.unmakeMove(promotion);
+        board.unmakeMove(enPassant);
+        board.unmakeMove(castle);
+        Assertions.assertEquals(original, board);
+        Assertions.assertEquals(original.getOccupancy(), board.getOccupancy());
+    }
+
+    @Test
+    @DisplayName("Piece Lists Track Kings and Occupied Squares")
+    public void pieceLists() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(3, 3), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        board.addPiece(new ChessPosition(8, 1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        Assertions.assertEquals(new ChessPosition(1, 7), board.getKingPosition(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(new ChessPosition(8, 1), board.getKingPosition(ChessGame.TeamColor.BLACK));
+
+        board.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(2, 8), null));
+        board.addPiece(new ChessPosition(3, 3), null);
+        Assertions.assertEquals(new ChessPosition(2, 8), board.getKingPosition(ChessGame.TeamColor.WHITE));
+
+        Map<ChessPosition, ChessPiece> white = new HashMap<>();
+        board.forEachPiece(ChessGame.TeamColor.WHITE, white::put);
+        Assertions.assertEquals(Map.of(new ChessPosition(2, 8),
+                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING)), white);
+        Assertions.assertEquals(1, board.pieceCount(ChessGame.TeamColor.BLACK));
+
+        board.addPiece(new ChessPosition(8, 1), null);
+        Assertions.assertNull(board.getKingPosition(ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(board.getPiece(new ChessPosition(2, 8)), board.copy().getPiece(new ChessPosition(2, 8)));
+    }
+
+    @Test
+    @DisplayName("Off-Board Positions Are Rejected")
+    public void offBoardPositions() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessPiece rook = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> board.getPiece(new ChessPosition(2, 0)));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> board.getPiece(new ChessPosition(9, 1)));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> board.addPiece(new ChessPosition(0, 9), rook));
+        Assertions.assertEquals(rook, board.getPiece(new ChessPosition(1, 1)));
+
+        ChessGame game = new ChessGame();
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> game.validMoves(new ChessPosition(2, 0)));
+    }
+}
@@ -0,0 +1,74 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class FenTests {
+
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    @Test
+    @DisplayName("Starting Position Round Trip")
+    public void startingPosition() {
+        Assertions.assertEquals(START, new ChessGame().toFen());
+        ChessGame parsed = ChessGame.fromFen(START);
+        Assertions.assertEquals(new ChessGame(), parsed);
+        Assertions.assertEquals(new ChessGame().zobristKey(), parsed.zobristKey());
+    }
+
+    @Test
+    @DisplayName("Reference Positions Round Trip")
+    public void referencePositions() {
+        for (Perft.ReferencePosition reference : Perft.ReferencePosition.values()) {
+            String fen = reference.newGame().toFen();
+            Assertions.assertEquals(fen, ChessGame.fromFen(fen).toFen());
+        }
+        String kiwipete = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b Kq - 12 40";
+        Assertions.assertEquals(kiwipete, ChessGame.fromFen(kiwipete).toFen());
+    }
+
+    @Test
+    @DisplayName("Move Counters and En Passant Follow Play")
+    public void countersFollowMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", game.toFen());
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        Assertions.assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 1 2", game.toFen());
+
+        long undo = game.play(PackedMove.of(new ChessMove(new ChessPosition(8, 2), new ChessPosition(6, 3), null)));
+        Assertions.assertEquals(2, game.getHalfmoveClock());
+        Assertions.assertEquals(3, game.getFullmoveNumber());
+        game.undo(undo);
+        Assertions.assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 1 2", game.toFen());
+    }
+
+    @Test
+    @DisplayName("Missing Fields Take Defaults")
+    public void defaults() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3");
+        Assertions.assertEquals("4k3/8/8/8/8/8/8/4K3 w - - 0 1", game.toFen());
+    }
+
+    @Test
+    @DisplayName("Malformed FEN Is Rejected")
+    public void malformed() {
+        String[] bad = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w",
+                "rnbqkbnr/ppppxppp/8/8/8/8/PPPPPPPP/RNBQKBNR w",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQxq",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e4",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - a 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 0",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 extra",
+        };
+        for (String fen : bad) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen), fen);
+        }
+    }
+}
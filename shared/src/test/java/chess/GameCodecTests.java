@@ -0,0 +1,79 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class GameCodecTests {
+
+    @Test
+    @DisplayName("Encoded Game Is Fixed Size")
+    public void fixedSize() {
+        Assertions.assertTrue(ChessGame.ENCODED_SIZE <= 40);
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        new ChessGame().writeTo(buffer);
+        Assertions.assertEquals(ChessGame.ENCODED_SIZE, buffer.position());
+    }
+
+    @Test
+    @DisplayName("Reference Positions Round Trip")
+    public void referencePositions() {
+        ByteBuffer buffer = ByteBuffer.allocate(ChessGame.ENCODED_SIZE * Perft.ReferencePosition.values().length);
+        for (Perft.ReferencePosition reference : Perft.ReferencePosition.values()) {
+            reference.newGame().writeTo(buffer);
+        }
+        buffer.flip();
+        for (Perft.ReferencePosition reference : Perft.ReferencePosition.values()) {
+            ChessGame game = ChessGame.readFrom(buffer);
+            Assertions.assertEquals(reference.newGame().toFen(), game.toFen());
+            Assertions.assertEquals(reference.newGame().zobristKey(), game.zobristKey());
+        }
+        Assertions.assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    @DisplayName("Counters and En Passant Round Trip")
+    public void countersAndEnPassant() {
+        String fen = "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w Kq f6 0 300";
+        ByteBuffer buffer = ByteBuffer.allocate(ChessGame.ENCODED_SIZE);
+        ChessGame.fromFen(fen).writeTo(buffer);
+        buffer.flip();
+        Assertions.assertEquals(fen, ChessGame.readFrom(buffer).toFen());
+    }
+
+    @Test
+    @DisplayName("Layout Ignores Byte Order")
+    public void byteOrder() {
+        ChessGame game = ChessGame.fromFen("8/8/8/4k3/8/8/8/4K3 b - - 1234 999");
+        ByteBuffer big = ByteBuffer.allocate(ChessGame.ENCODED_SIZE);
+        ByteBuffer little = ByteBuffer.allocate(ChessGame.ENCODED_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        game.writeTo(big);
+        game.writeTo(little);
+        Assertions.assertArrayEquals(big.array(), little.array());
+        little.flip();
+        Assertions.assertEquals(game.toFen(), ChessGame.readFrom(little).toFen());
+    }
+
+    @Test
+    @DisplayName("Corrupt Bytes Are Rejected")
+    public void corrupt() {
+        ByteBuffer buffer = ByteBuffer.allocate(ChessGame.ENCODED_SIZE);
+        new ChessGame().writeTo(buffer);
+        byte[] valid = buffer.array();
+
+        byte[] badPiece = valid.clone();
+        badPiece[20] = (byte) 0xD0;
+        byte[] badFlags = valid.clone();
+        badFlags[32] = (byte) 0x80;
+        byte[] badEnPassant = valid.clone();
+        badEnPassant[33] = 1;
+        byte[] badFullmove = valid.clone();
+        badFullmove[37] = 0;
+        for (byte[] bytes : new byte[][]{badPiece, badFlags, badEnPassant, badFullmove}) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.readFrom(ByteBuffer.wrap(bytes)));
+        }
+    }
+}
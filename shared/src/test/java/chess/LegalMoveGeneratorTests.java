@@ -0,0 +1,144 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class LegalMoveGeneratorTests {
+
+    @Test
+    @DisplayName("Pinned Piece Stays on Its Line")
+    public void pinnedPiece() {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | |r| | | |
+                | | | | | | | | |
+                | | | | |R| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                """));
+
+        for (ChessMove move : game.validMoves(new ChessPosition(4, 5))) {
+            Assertions.assertEquals(5, move.getEndPosition().getColumn(), "pinned rook left the e-file: " + move);
+        }
+        Assertions.assertEquals(4, game.validMoves(new ChessPosition(4, 5)).size());
+    }
+
+    @Test
+    @DisplayName("En Passant Cannot Expose the King Along a Rank")
+    public void enPassantDiscoveredCheck() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                | | | | |k| | | |
+                | | |p| | | | | |
+                | | | | | | | | |
+                |K| | |P| | | |r|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """));
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        game.makeMove(new ChessMove(new ChessPosition(7, 3), new ChessPosition(5, 3), null));
+
+        Assertions.assertFalse(game.validMoves(new ChessPosition(5, 4))
+                .contains(new ChessMove(new ChessPosition(5, 4), new ChessPosition(6, 3), null)));
+    }
+
+    @Test
+    @DisplayName("Matches Make-Unmake Filtering Over Random Games")
+    public void matchesBruteForce() throws InvalidMoveException {
+        Random random = new Random(7);
+        for (int gameNumber = 0; gameNumber < 40; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 80; ply++) {
+                List<ChessMove> legal = new ArrayList<>();
+                for (int square = 0; square < 64; square++) {
+                    ChessPosition position = ChessPosition.ofSquare(square);
+                    ChessPiece piece = game.getBoard().getPiece(position);
+                    if (piece == null) {
+                        continue;
+                    }
+                    Set<ChessMove> expected = bruteForce(game.getBoard(), piece, position);
+                    Set<ChessMove> actual = new HashSet<>(game.validMoves(position));
+                    actual.removeIf(move -> isCastleOrEnPassant(game.getBoard(), move));
+                    Assertions.assertEquals(expected, actual, "moves from " + position);
+                    if (piece.getTeamColor() == game.getTeamTurn()) {
+                        legal.addAll(game.validMoves(position));
+                    }
+                }
+                if (legal.isEmpty()) {
+                    break;
+                }
+                game.makeMove(legal.get(random.nextInt(legal.size())));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Single-Move Check Agrees With Valid Moves")
+    public void isLegalMatchesValidMoves() throws InvalidMoveException {
+        Random random = new Random(11);
+        ChessPiece.PieceType[] promotions = {null, ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KNIGHT,
+                ChessPiece.PieceType.KING};
+        for (Perft.ReferencePosition reference : Perft.ReferencePosition.values()) {
+            ChessGame game = reference.newGame();
+            for (int ply = 0; ply < 20; ply++) {
+                List<ChessMove> legal = new ArrayList<>();
+                for (int from = 0; from < 64; from++) {
+                    ChessPosition start = ChessPosition.ofSquare(from);
+                    if (game.getBoard().getPiece(start) == null) {
+                        continue;
+                    }
+                    Set<ChessMove> valid = new HashSet<>(game.validMoves(start));
+                    for (int to = 0; to < 64; to++) {
+                        for (ChessPiece.PieceType promotion : promotions) {
+                            ChessMove move = new ChessMove(start, ChessPosition.ofSquare(to), promotion);
+                            Assertions.assertEquals(valid.contains(move), game.isLegal(move), reference + " " + move);
+                        }
+                    }
+                    if (game.getBoard().getPiece(start).getTeamColor() == game.getTeamTurn()) {
+                        legal.addAll(valid);
+                    }
+                }
+                if (legal.isEmpty()) {
+                    break;
+                }
+                game.makeMove(legal.get(random.nextInt(legal.size())));
+            }
+        }
+    }
+
+    private static Set<ChessMove> bruteForce(ChessBoard board, ChessPiece piece, ChessPosition position) {
+        Set<ChessMove> moves = new HashSet<>();
+        for (ChessMove move : piece.pieceMoves(board, position)) {
+            long undo = board.makeMove(move);
+            long king = board.getBitboard(piece.getTeamColor(), ChessPiece.PieceType.KING);
+            ChessGame.TeamColor enemy = piece.getTeamColor() == ChessGame.TeamColor.WHITE
+                    ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            if (!ChessGame.isSquareAttacked(board, Long.numberOfTrailingZeros(king), enemy)) {
+                moves.add(move);
+            }
+            board.unmakeMove(undo);
+        }
+        return moves;
+    }
+
+    private static boolean isCastleOrEnPassant(ChessBoard board, ChessMove move) {
+        ChessPiece piece = board.getPiece(move.getStartPosition());
+        int colDiff = Math.abs(move.getEndPosition().getColumn() - move.getStartPosition().getColumn());
+        return (piece.getPieceType() == ChessPiece.PieceType.KING && colDiff == 2)
+                || (piece.getPieceType() == ChessPiece.PieceType.PAWN && colDiff == 1
+                && board.getPiece(move.getEndPosition()) == null);
+    }
+}
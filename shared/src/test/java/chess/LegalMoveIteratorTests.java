@@ -0,0 +1,45 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+public class LegalMoveIteratorTests {
+
+    @Test
+    @DisplayName("Lazy Iteration Yields Every Valid Move")
+    public void matchesAllValidMoves() {
+        for (Perft.ReferencePosition reference : Perft.ReferencePosition.values()) {
+            ChessGame game = reference.newGame();
+            Set<ChessMove> expected = new HashSet<>(game.allValidMoves().getAllMoves());
+            Set<ChessMove> streamed = game.legalMoves().collect(Collectors.toSet());
+            Assertions.assertEquals(expected, streamed, reference.toString());
+            Assertions.assertEquals(reference.expectedNodes(1), game.legalMoves().count());
+        }
+    }
+
+    @Test
+    @DisplayName("Status Checks Stop at the First Legal Move")
+    public void stopsEarly() {
+        AtomicInteger calls = new AtomicInteger();
+        MoveGenerator counting = (board, color, castlingRights, enPassantSquare, fromMask, moves) -> {
+            calls.incrementAndGet();
+            MoveGenerator.fast().generate(board, color, castlingRights, enPassantSquare, fromMask, moves);
+        };
+        ChessGame game = new ChessGame();
+        game.setMoveGenerator(counting);
+
+        Assertions.assertFalse(game.isInStalemate(ChessGame.TeamColor.WHITE));
+        // Neither the king nor the a1 rook can move at the start; the b1 knight can
+        Assertions.assertEquals(3, calls.get());
+
+        calls.set(0);
+        Assertions.assertTrue(game.legalMoves().findFirst().isPresent());
+        Assertions.assertEquals(3, calls.get());
+    }
+}
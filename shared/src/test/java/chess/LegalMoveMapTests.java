@@ -0,0 +1,58 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class LegalMoveMapTests {
+
+    @Test
+    @DisplayName("Map Matches Per-Square Valid Moves")
+    public void matchesValidMoves() {
+        for (Perft.ReferencePosition reference : Perft.ReferencePosition.values()) {
+            ChessGame game = reference.newGame();
+            LegalMoveMap map = game.allValidMoves();
+            int total = 0;
+            Set<ChessPosition> starts = new HashSet<>();
+            for (int square = 0; square < 64; square++) {
+                ChessPosition position = ChessPosition.ofSquare(square);
+                ChessPiece piece = game.getBoard().getPiece(position);
+                if (piece == null || piece.getTeamColor() != game.getTeamTurn()) {
+                    Assertions.assertTrue(map.getMoves(position).isEmpty());
+                    continue;
+                }
+                Set<ChessMove> expected = new HashSet<>(game.validMoves(position));
+                Assertions.assertEquals(expected, new HashSet<>(map.getMoves(position)), reference + " " + position);
+                for (ChessMove move : expected) {
+                    Assertions.assertTrue(map.contains(move));
+                }
+                if (!expected.isEmpty()) {
+                    starts.add(position);
+                }
+                total += expected.size();
+            }
+            Assertions.assertEquals(reference.expectedNodes(1), map.size());
+            Assertions.assertEquals(total, map.getAllMoves().size());
+            Assertions.assertEquals(starts, new HashSet<>(map.getStartPositions()));
+        }
+    }
+
+    @Test
+    @DisplayName("Moves Are Grouped by Start Square")
+    public void groupedByStart() {
+        List<Integer> starts = new ArrayList<>();
+        for (ChessMove move : new ChessGame().allValidMoves().getAllMoves()) {
+            starts.add(ChessBoard.square(move.getStartPosition()));
+        }
+        List<Integer> sorted = new ArrayList<>(starts);
+        sorted.sort(null);
+        Assertions.assertEquals(sorted, starts);
+        Assertions.assertFalse(new ChessGame().allValidMoves()
+                .contains(new ChessMove(new ChessPosition(2, 5), new ChessPosition(5, 5), null)));
+    }
+}
@@ -0,0 +1,112 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MoveGeneratorTests {
+
+    @Test
+    @DisplayName("Reference Generator Matches Perft Counts")
+    public void referencePerft() {
+        for (Perft.ReferencePosition reference : Perft.ReferencePosition.values()) {
+            ChessGame game = reference.newGame();
+            game.setMoveGenerator(MoveGenerator.reference());
+            Assertions.assertEquals(reference.expectedNodes(3), Perft.perft(game, 3), reference.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Fast and Reference Generators Agree Over Random Games")
+    public void generatorsAgree() {
+        Random random = new Random(5);
+        for (Perft.ReferencePosition reference : Perft.ReferencePosition.values()) {
+            for (int gameNumber = 0; gameNumber < 5; gameNumber++) {
+                ChessGame game = reference.newGame();
+                MoveList fast = new MoveList();
+                MoveList slow = new MoveList();
+                for (int ply = 0; ply < 60; ply++) {
+                    fast.clear();
+                    slow.clear();
+                    MoveGenerator.fast().generate(game.getBoard(), game.getTeamTurn(), game.castlingRights(),
+                            game.enPassantSquare(), -1L, fast);
+                    MoveGenerator.reference().generate(game.getBoard(), game.getTeamTurn(), game.castlingRights(),
+                            game.enPassantSquare(), -1L, slow);
+                    Assertions.assertEquals(asSet(slow), asSet(fast), reference + " ply " + ply);
+                    if (fast.isEmpty()) {
+                        break;
+                    }
+                    game.play(fast.get(random.nextInt(fast.size())));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Generator Selected by Name and System Property")
+    public void selection() {
+        Assertions.assertSame(MoveGenerator.reference(), MoveGenerator.byName("reference"));
+        Assertions.assertSame(MoveGenerator.fast(), MoveGenerator.byName("FAST"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MoveGenerator.byName("chess.NoSuchGenerator"));
+
+        String previous = System.getProperty(MoveGenerator.PROPERTY);
+        try {
+            System.setProperty(MoveGenerator.PROPERTY, "reference");
+            Assertions.assertSame(MoveGenerator.reference(), new ChessGame().getMoveGenerator());
+            System.clearProperty(MoveGenerator.PROPERTY);
+            Assertions.assertSame(MoveGenerator.fast(), new ChessGame().getMoveGenerator());
+        } finally {
+            if (previous != null) {
+                System.setProperty(MoveGenerator.PROPERTY, previous);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Generator Named by Class Is Constructed Once")
+    public void classNameInstanceShared() {
+        String name = CountingGenerator.class.getName();
+        MoveGenerator first = MoveGenerator.byName(name);
+        String previous = System.getProperty(MoveGenerator.PROPERTY);
+        try {
+            System.setProperty(MoveGenerator.PROPERTY, name);
+            Assertions.assertSame(first, new ChessGame().getMoveGenerator());
+            Assertions.assertSame(first, new ChessGame().getMoveGenerator());
+        } finally {
+            if (previous == null) {
+                System.clearProperty(MoveGenerator.PROPERTY);
+            } else {
+                System.setProperty(MoveGenerator.PROPERTY, previous);
+            }
+        }
+        Assertions.assertEquals(1, CountingGenerator.constructed.get());
+    }
+
+    /** Delegates to the fast generator and counts how often it is constructed */
+    public static class CountingGenerator implements MoveGenerator {
+        static final AtomicInteger constructed = new AtomicInteger();
+
+        public CountingGenerator() {
+            constructed.incrementAndGet();
+        }
+
+        @Override
+        public void generate(ChessBoard board, ChessGame.TeamColor color, int castlingRights, int enPassantSquare,
+                             long fromMask, MoveList moves) {
+            MoveGenerator.fast().generate(board, color, castlingRights, enPassantSquare, fromMask, moves);
+        }
+    }
+
+    private static Set<Integer> asSet(MoveList moves) {
+        Set<Integer> result = new HashSet<>();
+        for (int i = 0; i < moves.size(); i++) {
+            result.add(moves.get(i) & 0xFFFF);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,151 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class MoveHistoryCodecTests {
+
+    @Test
+    @DisplayName("Random Games Round Trip")
+    public void randomGames() throws Exception {
+        Random random = new Random(23);
+        for (Perft.ReferencePosition reference : Perft.ReferencePosition.values()) {
+            ChessGame start = reference.newGame();
+            List<ChessMove> moves = randomGame(start, random, 200);
+            byte[] bytes = MoveHistoryCodec.encode(start, moves);
+            Assertions.assertEquals(moves, MoveHistoryCodec.decode(start, bytes), reference.toString());
+            Assertions.assertTrue(bytes.length <= moves.size() + 1,
+                    reference + ": " + bytes.length + " bytes for " + moves.size() + " moves");
+        }
+    }
+
+    @Test
+    @DisplayName("Indices Follow Start Square, End Square, Then Promotion")
+    public void indexOrder() throws Exception {
+        // From the start: b1 (a3, c3), g1 (f3, h3), then pawns a2 to h2; e2-e4 is index 13
+        List<ChessMove> moves = List.of(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        Assertions.assertArrayEquals(new byte[]{0x6D, 0x00}, MoveHistoryCodec.encode(new ChessGame(), moves));
+
+        MoveList promotions = new MoveList();
+        ChessGame.fromFen("1n2k3/P7/8/8/8/8/8/4K3 w - - 0 1").generateLegalMoves(promotions);
+        promotions.sortBySquares();
+        int previous = -1;
+        for (int i = 0; i < promotions.size(); i++) {
+            int move = promotions.get(i);
+            int order = PackedMove.from(move) * 4096 + PackedMove.to(move) * 8 + (move >>> 12 & 0x7);
+            Assertions.assertTrue(order > previous, PackedMove.toChessMove(move).toString());
+            previous = order;
+        }
+    }
+
+    @Test
+    @DisplayName("Checkmate Needs No End Marker Bits")
+    public void foolsMate() throws Exception {
+        List<ChessMove> moves = List.of(
+                new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null),
+                new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null),
+                new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null),
+                new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MoveHistoryCodec.Writer writer = new MoveHistoryCodec.Writer(new ChessGame(), out);
+        for (ChessMove move : moves) {
+            writer.write(move);
+        }
+        writer.finish();
+        // 20, 20, 20 and 30 legal moves take 5 bits each
+        Assertions.assertEquals(3, out.size());
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        MoveHistoryCodec.Reader reader = new MoveHistoryCodec.Reader(new ChessGame(), in);
+        List<ChessMove> decoded = new ArrayList<>();
+        for (ChessMove move = reader.read(); move != null; move = reader.read()) {
+            decoded.add(move);
+        }
+        Assertions.assertEquals(moves, decoded);
+        Assertions.assertTrue(reader.getGame().isInCheckmate(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("Histories Can Share a Stream")
+    public void consecutiveHistories() throws Exception {
+        Random random = new Random(7);
+        ChessGame start = new ChessGame();
+        List<ChessMove> first = randomGame(start, random, 40);
+        List<ChessMove> second = randomGame(start, random, 60);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (List<ChessMove> history : List.of(first, second)) {
+            MoveHistoryCodec.Writer writer = new MoveHistoryCodec.Writer(start, out);
+            for (ChessMove move : history) {
+                writer.write(move);
+            }
+            writer.finish();
+        }
+        out.write(0x5A);
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        for (List<ChessMove> history : List.of(first, second)) {
+            MoveHistoryCodec.Reader reader = new MoveHistoryCodec.Reader(start, in);
+            for (ChessMove expected : history) {
+                Assertions.assertEquals(expected, reader.read());
+            }
+            Assertions.assertNull(reader.read());
+        }
+        Assertions.assertEquals(0x5A, in.read());
+    }
+
+    @Test
+    @DisplayName("Encoding Does Not Depend on the Generator")
+    public void generatorIndependent() throws Exception {
+        ChessGame fast = Perft.ReferencePosition.KIWIPETE.newGame();
+        ChessGame reference = Perft.ReferencePosition.KIWIPETE.newGame();
+        fast.setMoveGenerator(MoveGenerator.fast());
+        reference.setMoveGenerator(MoveGenerator.reference());
+        List<ChessMove> moves = randomGame(fast, new Random(11), 80);
+        Assertions.assertArrayEquals(MoveHistoryCodec.encode(fast, moves), MoveHistoryCodec.encode(reference, moves));
+    }
+
+    @Test
+    @DisplayName("Bad Input Is Rejected")
+    public void badInput() throws Exception {
+        ChessGame start = new ChessGame();
+        List<ChessMove> illegal = List.of(new ChessMove(new ChessPosition(2, 5), new ChessPosition(5, 5), null));
+        Assertions.assertThrows(InvalidMoveException.class, () -> MoveHistoryCodec.encode(start, illegal));
+        List<ChessMove> offBoard = List.of(new ChessMove(new ChessPosition(2, 5), new ChessPosition(9, 5), null));
+        Assertions.assertThrows(InvalidMoveException.class, () -> MoveHistoryCodec.encode(start, offBoard));
+
+        byte[] bytes = MoveHistoryCodec.encode(start, randomGame(start, new Random(3), 30));
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 2);
+        Assertions.assertThrows(EOFException.class, () -> MoveHistoryCodec.decode(start, truncated));
+        // 20 legal moves plus the end marker take 5 bits, leaving 11 unused values
+        Assertions.assertThrows(IOException.class, () -> MoveHistoryCodec.decode(start, new byte[]{(byte) 0xF8}));
+    }
+
+    /** Plays up to plies random legal moves on a copy of start and returns them */
+    private static List<ChessMove> randomGame(ChessGame start, Random random, int plies) {
+        ChessGame game = start.copy();
+        List<ChessMove> moves = new ArrayList<>();
+        MoveList legal = new MoveList();
+        for (int i = 0; i < plies; i++) {
+            legal.clear();
+            game.generateLegalMoves(legal);
+            if (legal.isEmpty()) {
+                break;
+            }
+            int move = legal.get(random.nextInt(legal.size()));
+            game.play(move);
+            moves.add(PackedMove.toChessMove(move));
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,135 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class NotationTests {
+
+    @Test
+    @DisplayName("Every Legal Move Round Trips Through SAN and UCI")
+    public void roundTrip() {
+        Random random = new Random(25);
+        for (MoveGenerator generator : List.of(MoveGenerator.fast(), MoveGenerator.reference())) {
+            for (Perft.ReferencePosition reference : Perft.ReferencePosition.values()) {
+                ChessGame game = reference.newGame();
+                game.setMoveGenerator(generator);
+                for (int ply = 0; ply < 60; ply++) {
+                    List<ChessMove> legal = game.legalMoves().toList();
+                    if (legal.isEmpty()) {
+                        break;
+                    }
+                    Set<String> names = new HashSet<>();
+                    for (ChessMove move : legal) {
+                        String san = game.toSan(move);
+                        Assertions.assertTrue(names.add(san), san + " in " + game.toFen());
+                        Assertions.assertEquals(move, game.fromSan(san), san + " in " + game.toFen());
+                        Assertions.assertEquals(move, game.fromUci(game.toUci(move)));
+                    }
+                    game.play(PackedMove.of(legal.get(random.nextInt(legal.size()))));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Disambiguation Uses File, Rank or Both")
+    public void disambiguation() {
+        ChessGame byFile = ChessGame.fromFen("rn1qkb1r/ppp2ppp/5n2/3pp3/8/8/PPPPPPPP/RNBQKBNR b KQkq - 0 1");
+        Assertions.assertEquals("Nbd7", byFile.toSan(move(8, 2, 7, 4)));
+        Assertions.assertEquals("Nfd7", byFile.toSan(move(6, 6, 7, 4)));
+        Assertions.assertEquals(move(8, 2, 7, 4), byFile.fromSan("Nbd7"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> byFile.fromSan("Nd7"));
+
+        ChessGame byRank = ChessGame.fromFen("4k3/8/8/8/8/2N5/8/2N1K3 w - - 0 1");
+        Assertions.assertEquals("N1e2", byRank.toSan(move(1, 3, 2, 5)));
+        Assertions.assertEquals("N3e2", byRank.toSan(move(3, 3, 2, 5)));
+        Assertions.assertEquals(move(3, 3, 2, 5), byRank.fromSan("N3e2"));
+
+        ChessGame bySquare = ChessGame.fromFen("k7/8/8/4Q2Q/8/8/7Q/4K3 w - - 0 1");
+        Assertions.assertEquals("Qh5e2", bySquare.toSan(move(5, 8, 2, 5)));
+        Assertions.assertEquals("Qee2", bySquare.toSan(move(5, 5, 2, 5)));
+        Assertions.assertEquals("Q2e2", bySquare.toSan(move(2, 8, 2, 5)));
+        Assertions.assertEquals(move(5, 8, 2, 5), bySquare.fromSan("Qh5e2"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bySquare.fromSan("Qhe2"));
+    }
+
+    @Test
+    @DisplayName("Pinned Pieces Do Not Cause Disambiguation")
+    public void pinnedPiece() {
+        ChessGame free = ChessGame.fromFen("4k3/8/8/8/8/2N3N1/8/4K3 w - - 0 1");
+        ChessGame pinned = ChessGame.fromFen("4k3/8/8/b7/8/2N3N1/8/4K3 w - - 0 1");
+        Assertions.assertEquals("Nge4", free.toSan(move(3, 7, 4, 5)));
+        Assertions.assertEquals("Ne4", pinned.toSan(move(3, 7, 4, 5)));
+        Assertions.assertEquals(move(3, 7, 4, 5), pinned.fromSan("Ne4"));
+    }
+
+    @Test
+    @DisplayName("Special Moves")
+    public void specialMoves() {
+        ChessGame enPassant = ChessGame.fromFen("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 2");
+        Assertions.assertEquals("exd6", enPassant.toSan(move(5, 5, 6, 4)));
+        Assertions.assertEquals("e5d6", enPassant.toUci(move(5, 5, 6, 4)));
+
+        ChessGame promotion = ChessGame.fromFen("3k4/4P3/8/8/8/8/8/4K3 w - - 0 1");
+        ChessMove queen = new ChessMove(new ChessPosition(7, 5), new ChessPosition(8, 5), ChessPiece.PieceType.QUEEN);
+        Assertions.assertEquals("e8=Q+", promotion.toSan(queen));
+        Assertions.assertEquals("e7e8q", promotion.toUci(queen));
+        Assertions.assertEquals(queen, promotion.fromSan("e8Q"));
+        Assertions.assertEquals(queen, promotion.fromUci("e7e8q"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> promotion.fromSan("e8"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> promotion.fromUci("e7e8"));
+
+        ChessGame castling = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        Assertions.assertEquals("O-O", castling.toSan(move(1, 5, 1, 7)));
+        Assertions.assertEquals("O-O-O", castling.toSan(move(1, 5, 1, 3)));
+        Assertions.assertEquals("e1g1", castling.toUci(move(1, 5, 1, 7)));
+        Assertions.assertEquals(move(1, 5, 1, 3), castling.fromSan("0-0-0"));
+
+        ChessGame mate = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        Assertions.assertEquals("Ra8#", mate.toSan(move(1, 1, 8, 1)));
+    }
+
+    @Test
+    @DisplayName("Pawn Pushes and Captures Are Not Confused")
+    public void pawnPushVersusCapture() {
+        ChessGame occupied = ChessGame.fromFen("4k3/8/8/8/4p3/8/3P4/4K3 w - - 0 1");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> occupied.fromSan("e4"));
+        Assertions.assertEquals(move(2, 4, 3, 4), occupied.fromSan("d3"));
+        ChessGame capture = ChessGame.fromFen("4k3/8/8/8/4p3/3P4/8/4K3 w - - 0 1");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> capture.fromSan("e4"));
+        Assertions.assertEquals(move(3, 4, 4, 5), capture.fromSan("dxe4"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> capture.fromSan("xd4"));
+
+        ChessGame enPassant = ChessGame.fromFen("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 2");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> enPassant.fromSan("d6"));
+        Assertions.assertEquals(move(5, 5, 6, 4), enPassant.fromSan("exd6"));
+        Assertions.assertEquals(move(5, 5, 6, 5), enPassant.fromSan("e6"));
+    }
+
+    @Test
+    @DisplayName("Bad Notation Is Rejected")
+    public void badNotation() {
+        ChessGame game = new ChessGame();
+        for (String san : new String[]{"", "e", "e5", "Ke2", "Nf3=Q", "O-O", "Zf3", "Nf3!x"}) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> game.fromSan(san), san);
+        }
+        for (String uci : new String[]{"", "e2", "e2e5", "e2e4k", "i2i4", "e7e5", "e2e4qq"}) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> game.fromUci(uci), uci);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> game.toSan(move(1, 2, 4, 3)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> game.toUci(move(7, 5, 5, 5)));
+        Assertions.assertEquals(move(2, 5, 4, 5), game.fromSan("e4!?"));
+        Assertions.assertEquals(move(1, 7, 3, 6), game.fromSan("Ng1f3"));
+        Assertions.assertEquals(move(2, 5, 4, 5), game.fromSan("e2e4"));
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+}
@@ -0,0 +1,51 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class PackedMoveTests {
+
+    @Test
+    @DisplayName("Packed Move Round Trip")
+    public void roundTrip() {
+        ChessMove move = new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 1), ChessPiece.PieceType.KNIGHT);
+        int packed = PackedMove.of(move);
+
+        Assertions.assertEquals(49, PackedMove.from(packed));
+        Assertions.assertEquals(56, PackedMove.to(packed));
+        Assertions.assertEquals(ChessPiece.PieceType.KNIGHT, PackedMove.promotion(packed));
+        Assertions.assertEquals(move, PackedMove.toChessMove(packed));
+        Assertions.assertNull(PackedMove.promotion(PackedMove.of(0, 8, null, PackedMove.CAPTURE)));
+    }
+
+    @Test
+    @DisplayName("Buffer Is Reused Across Generations")
+    public void bufferReuse() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        MoveList moves = new MoveList(1);
+
+        ChessPosition knight = new ChessPosition(1, 2);
+        board.getPiece(knight).generateMoves(board, ChessBoard.square(knight), moves);
+        Assertions.assertEquals(2, moves.size());
+
+        moves.clear();
+        ChessPosition pawn = new ChessPosition(2, 5);
+        board.getPiece(pawn).generateMoves(board, ChessBoard.square(pawn), moves);
+        Assertions.assertEquals(2, moves.size());
+        Assertions.assertTrue(PackedMove.hasFlag(moves.get(1), PackedMove.DOUBLE_PUSH));
+        Assertions.assertEquals(board.getPiece(pawn).pieceMoves(board, pawn), moves.toChessMoves());
+    }
+
+    @Test
+    @DisplayName("Empty Buffer Grows on First Add")
+    public void zeroCapacity() {
+        MoveList moves = new MoveList(0);
+        for (int i = 0; i < 20; i++) {
+            moves.add(i);
+        }
+        Assertions.assertEquals(20, moves.size());
+        Assertions.assertEquals(19, moves.get(19));
+    }
+}
@@ -0,0 +1,55 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PerftTests {
+
+    @ParameterizedTest
+    @EnumSource(Perft.ReferencePosition.class)
+    @DisplayName("Reference Positions Match Published Counts")
+    public void referencePositions(Perft.ReferencePosition position) {
+        ChessGame game = position.newGame();
+        long key = game.zobristKey();
+        for (int depth = 1; depth <= 3; depth++) {
+            Assertions.assertEquals(position.expectedNodes(depth), Perft.perft(game, depth),
+                    position + " depth " + depth);
+        }
+        Assertions.assertEquals(key, game.zobristKey(), "Perft should leave the game unchanged");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Perft.ReferencePosition.class)
+    @DisplayName("Divide Sums to Perft")
+    public void divideSumsToPerft(Perft.ReferencePosition position) {
+        ChessGame game = position.newGame();
+        long total = Perft.divide(game, 2).values().stream().mapToLong(Long::longValue).sum();
+        Assertions.assertEquals(position.expectedNodes(2), total);
+    }
+
+    @Test
+    @DisplayName("Parallel Perft Matches Sequential")
+    public void parallelMatchesSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ChessGame game = Perft.ReferencePosition.KIWIPETE.newGame();
+            long key = game.zobristKey();
+            Assertions.assertEquals(Perft.ReferencePosition.KIWIPETE.expectedNodes(4), Perft.perft(game, 4, pool));
+            Assertions.assertEquals(key, game.zobristKey());
+
+            LongAdder visited = new LongAdder();
+            long nodes = Perft.forEachPosition(Perft.ReferencePosition.POSITION_3.newGame(), 5, pool,
+                    position -> visited.increment());
+            Assertions.assertEquals(Perft.ReferencePosition.POSITION_3.expectedNodes(5), nodes);
+            Assertions.assertEquals(nodes, visited.sum());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class PgnTests {
+
+    private static final String OPERA_GAME = """
+            [Event "Paris"]
+            [Site "Paris FRA"]
+            [Date "1858.??.??"]
+            [White "Paul Morphy"]
+            [Black "Duke Karl / Count Isouard"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 d6 3. d4 Bg4 {This is a weak move already.} 4. dxe5 Bxf3
+            5. Qxf3 dxe5 6. Bc4 Nf6 7. Qb3 $1 Qe7 8. Nc3 (8. Qxb7 Qb4+ 9. Qxb4 Bxb4+) 8... c6
+            9. Bg5 b5 10. Nxb5! cxb5 11. Bxb5+ Nbd7 12. O-O-O Rd8 13. Rxd7 Rxd7 14. Rd1 Qe6
+            ; Morphy brings the last piece into play
+            15. Bxd7+ Nxd7 16. Qb8+ Nxb8 17. Rd8# 1-0
+            """;
+
+    @Test
+    @DisplayName("Read Annotated Game")
+    public void readAnnotatedGame() throws Exception {
+        PgnGame game = read(OPERA_GAME).get(0);
+        Assertions.assertEquals("Paul Morphy", game.getTag("White"));
+        Assertions.assertEquals(6, game.getTags().size());
+        Assertions.assertEquals("1-0", game.getResult());
+        Assertions.assertEquals(33, game.getMoves().size());
+
+        ChessGame end = game.replay();
+        Assertions.assertEquals("1n1Rkb1r/p4ppp/4q3/4p1B1/4P3/8/PPP2PPP/2K5 b k - 1 17", end.toFen());
+        Assertions.assertTrue(end.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Write Movetext in SAN")
+    public void writeMovetext() throws Exception {
+        PgnGame game = read(OPERA_GAME).get(0);
+        String written = write(List.of(game));
+        Assertions.assertTrue(written.startsWith("[Event \"Paris\"]\n"), written);
+        String firstLine = "1. e4 e5 2. Nf3 d6 3. d4 Bg4 4. dxe5 Bxf3 5. Qxf3 dxe5 6. Bc4 Nf6 7. Qb3 Qe7";
+        Assertions.assertTrue(written.contains("\n\n" + firstLine + "\n"), written);
+        Assertions.assertTrue(written.contains("11. Bxb5+ Nbd7 12. O-O-O Rd8"), written);
+        Assertions.assertTrue(written.endsWith("17. Rd8# 1-0\n\n"), written);
+        for (String line : written.split("\n")) {
+            Assertions.assertTrue(line.length() <= 80, line);
+        }
+    }
+
+    @Test
+    @DisplayName("Random Games Round Trip")
+    public void randomGames() throws Exception {
+        Random random = new Random(24);
+        List<PgnGame> games = new ArrayList<>();
+        for (Perft.ReferencePosition reference : Perft.ReferencePosition.values()) {
+            Map<String, String> tags = new LinkedHashMap<>();
+            tags.put("Event", "Random \"" + reference + "\" \\ test");
+            tags.put("Site", "Zürich");
+            games.add(new PgnGame(tags, reference.newGame(), randomMoves(reference.newGame(), random, 150), "*"));
+        }
+
+        List<PgnGame> read = read(write(games));
+        Assertions.assertEquals(games.size(), read.size());
+        for (int i = 0; i < games.size(); i++) {
+            PgnGame expected = games.get(i);
+            PgnGame actual = read.get(i);
+            Assertions.assertEquals(expected.getMoves(), actual.getMoves());
+            Assertions.assertEquals(expected.getTag("Event"), actual.getTag("Event"));
+            Assertions.assertEquals("Zürich", actual.getTag("Site"));
+            Assertions.assertEquals(expected.getStartingPosition().toFen(), actual.getStartingPosition().toFen());
+        }
+    }
+
+    @Test
+    @DisplayName("Black to Move Numbers the First Move With Dots")
+    public void blackToMove() throws Exception {
+        ChessGame start = ChessGame.fromFen("4k3/8/8/8/8/8/4P3/4K3 b - - 0 12");
+        List<ChessMove> moves = List.of(new ChessMove(new ChessPosition(8, 5), new ChessPosition(8, 4), null),
+                new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        String written = write(List.of(new PgnGame(Map.of(), start, moves, "*")));
+        Assertions.assertEquals("[SetUp \"1\"]\n[FEN \"4k3/8/8/8/8/8/4P3/4K3 b - - 0 12\"]\n\n12... Kd8 13. e4 *\n\n",
+                written);
+        Assertions.assertEquals(moves, read(written).get(0).getMoves());
+    }
+
+    @Test
+    @DisplayName("Bad Move Skips to the Next Game")
+    public void badMove() throws Exception {
+        String pgn = """
+                [Event "Broken"]
+
+                1. e4 e5 2. Nf6 Nc6 3. Bb5 1-0
+
+                [Event "Fine"]
+
+                1. d4 d5 1/2-1/2
+                """;
+        try (PgnReader reader = reader(pgn)) {
+            IOException error = Assertions.assertThrows(IOException.class, reader::next);
+            Assertions.assertTrue(error.getMessage().contains("line 3"), error.getMessage());
+            PgnGame fine = reader.next();
+            Assertions.assertEquals("Fine", fine.getTag("Event"));
+            Assertions.assertEquals(2, fine.getMoves().size());
+            Assertions.assertNull(reader.next());
+        }
+    }
+
+    @Test
+    @DisplayName("Illegal Game Writes Nothing")
+    public void illegalGameWritesNothing() throws Exception {
+        List<ChessMove> illegal = List.of(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null),
+                new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null),
+                new ChessMove(new ChessPosition(1, 4), new ChessPosition(3, 4), null));
+        List<ChessMove> legal = List.of(new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PgnWriter writer = new PgnWriter(Channels.newChannel(out))) {
+            Assertions.assertThrows(InvalidMoveException.class,
+                    () -> writer.write(new PgnGame(Map.of("Event", "Broken"), new ChessGame(), illegal, "*")));
+            writer.write(new PgnGame(Map.of("Event", "Fine"), new ChessGame(), legal, "*"));
+        }
+        Assertions.assertEquals("[Event \"Fine\"]\n\n1. d4 *\n\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Reading Streams Through a Fixed Buffer")
+    public void streaming() throws Exception {
+        byte[] game = "[Event \"Repeated\"]\n\n1. f3 e5 2. g4 Qh4# 0-1\n\n".getBytes(StandardCharsets.US_ASCII);
+        int copies = 20_000;
+        ReadableByteChannel channel = new ReadableByteChannel() {
+            private long offset;
+
+            @Override
+            public int read(ByteBuffer destination) {
+                if (offset == (long) game.length * copies) {
+                    return -1;
+                }
+                int count = 0;
+                while (destination.hasRemaining() && offset < (long) game.length * copies) {
+                    destination.put(game[(int) (offset++ % game.length)]);
+                    count++;
+                }
+                return count;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        int games = 0;
+        try (PgnReader reader = new PgnReader(channel)) {
+            for (PgnGame pgn = reader.next(); pgn != null; pgn = reader.next()) {
+                Assertions.assertEquals("0-1", pgn.getResult());
+                games++;
+            }
+        }
+        Assertions.assertEquals(copies, games);
+    }
+
+    private static List<ChessMove> randomMoves(ChessGame game, Random random, int plies) {
+        List<ChessMove> moves = new ArrayList<>();
+        MoveList legal = new MoveList();
+        for (int i = 0; i < plies; i++) {
+            legal.clear();
+            game.generateLegalMoves(legal);
+            if (legal.isEmpty()) {
+                break;
+            }
+            int move = legal.get(random.nextInt(legal.size()));
+            game.play(move);
+            moves.add(PackedMove.toChessMove(move));
+        }
+        return moves;
+    }
+
+    private static PgnReader reader(String pgn) {
+        return new PgnReader(Channels.newChannel(new ByteArrayInputStream(pgn.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static List<PgnGame> read(String pgn) throws IOException {
+        List<PgnGame> games = new ArrayList<>();
+        try (PgnReader reader = reader(pgn)) {
+            for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+                games.add(game);
+            }
+        }
+        return games;
+    }
+
+    private static String write(List<PgnGame> games) throws IOException, InvalidMoveException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PgnWriter writer = new PgnWriter(Channels.newChannel(out))) {
+            for (PgnGame game : games) {
+                writer.write(game);
+            }
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
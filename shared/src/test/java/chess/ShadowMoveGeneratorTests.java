@@ -0,0 +1,90 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ShadowMoveGeneratorTests {
+
+    /** Drops castling moves, as a stand-in for a regressed generator */
+    private static final MoveGenerator NO_CASTLING = (board, color, castlingRights, enPassantSquare, fromMask,
+                                                      moves) -> MoveGenerator.fast().generate(board, color, 0,
+            enPassantSquare, fromMask, moves);
+
+    @Test
+    @DisplayName("Agreeing Generators Record Nothing")
+    public void agreeing() throws InvalidMoveException {
+        ShadowMoveGenerator shadow = new ShadowMoveGenerator(MoveGenerator.fast(), MoveGenerator.reference(), 1.0,
+                Runnable::run, null);
+        ChessGame game = Perft.ReferencePosition.KIWIPETE.newGame();
+        game.setMoveGenerator(shadow);
+        Assertions.assertEquals(48, game.allValidMoves().size());
+        game.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 7), null));
+
+        // allValidMoves, then the move check and the status check inside makeMove
+        Assertions.assertEquals(3, shadow.getSampledCount());
+        Assertions.assertEquals(0, shadow.getMismatchCount());
+    }
+
+    @Test
+    @DisplayName("Disagreement Is Recorded With the Position")
+    public void disagreement() {
+        List<ShadowMoveGenerator.Mismatch> heard = new ArrayList<>();
+        ShadowMoveGenerator shadow = new ShadowMoveGenerator(NO_CASTLING, MoveGenerator.reference(), 1.0,
+                Runnable::run, heard::add);
+        ChessGame game = Perft.ReferencePosition.KIWIPETE.newGame();
+        game.setMoveGenerator(shadow);
+
+        Assertions.assertEquals(46, game.allValidMoves().size(), "the primary's answer is returned");
+        Assertions.assertFalse(game.isLegal(new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 3), null)));
+
+        Assertions.assertEquals(2, shadow.getMismatchCount());
+        Assertions.assertEquals(heard, new ArrayList<>(shadow.getRecentMismatches()));
+        ShadowMoveGenerator.Mismatch first = heard.get(0);
+        Assertions.assertEquals("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -", first.position());
+        Assertions.assertEquals(2, first.missing().size());
+        Assertions.assertTrue(first.extra().isEmpty());
+        Assertions.assertTrue(heard.get(1).call().startsWith("isLegal"));
+    }
+
+    @Test
+    @DisplayName("Zero Sample Rate Checks Nothing")
+    public void notSampled() {
+        ShadowMoveGenerator shadow = new ShadowMoveGenerator(NO_CASTLING, MoveGenerator.reference(), 0.0,
+                Runnable::run, null);
+        ChessGame game = Perft.ReferencePosition.KIWIPETE.newGame();
+        game.setMoveGenerator(shadow);
+        game.allValidMoves();
+        Assertions.assertEquals(0, shadow.getSampledCount());
+        Assertions.assertEquals(0, shadow.getMismatchCount());
+    }
+
+    @Test
+    @DisplayName("Bad Sample Rate Property Is Rejected")
+    public void badSampleRateProperty() {
+        String previous = System.getProperty(ShadowMoveGenerator.SAMPLE_RATE_PROPERTY);
+        try {
+            for (String value : new String[]{"often", "1.5", "-0.1", "NaN"}) {
+                System.setProperty(ShadowMoveGenerator.SAMPLE_RATE_PROPERTY, value);
+                IllegalArgumentException error = Assertions.assertThrows(IllegalArgumentException.class,
+                        ShadowMoveGenerator::sampleRateFromProperty, value);
+                Assertions.assertTrue(error.getMessage().contains(ShadowMoveGenerator.SAMPLE_RATE_PROPERTY));
+            }
+            System.setProperty(ShadowMoveGenerator.SAMPLE_RATE_PROPERTY, " 0.25 ");
+            Assertions.assertEquals(0.25, ShadowMoveGenerator.sampleRateFromProperty());
+            System.clearProperty(ShadowMoveGenerator.SAMPLE_RATE_PROPERTY);
+            Assertions.assertEquals(0.01, ShadowMoveGenerator.sampleRateFromProperty());
+        } finally {
+            if (previous == null) {
+                System.clearProperty(ShadowMoveGenerator.SAMPLE_RATE_PROPERTY);
+            } else {
+                System.setProperty(ShadowMoveGenerator.SAMPLE_RATE_PROPERTY, previous);
+            }
+        }
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new ShadowMoveGenerator(MoveGenerator.fast(), MoveGenerator.reference(), Double.NaN));
+    }
+}
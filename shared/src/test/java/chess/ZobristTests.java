@@ -0,0 +1,87 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ZobristTests {
+
+    @Test
+    @DisplayName("Transposition Reaches the Same Key")
+    public void transposition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        long start = game.zobristKey();
+
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        Assertions.assertNotEquals(start, game.zobristKey());
+        game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null));
+        game.makeMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+
+        Assertions.assertEquals(start, game.zobristKey());
+        Assertions.assertEquals(new ChessGame(), game);
+        Assertions.assertEquals(new ChessGame().hashCode(), game.hashCode());
+    }
+
+    @Test
+    @DisplayName("Incremental Key Matches Fresh Board")
+    public void incrementalMatchesFresh() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        game.makeMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 4), null));
+
+        ChessBoard fresh = new ChessBoard();
+        fresh.resetBoard();
+        fresh.addPiece(new ChessPosition(2, 5), null);
+        fresh.addPiece(new ChessPosition(7, 4), null);
+        fresh.addPiece(new ChessPosition(5, 4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+
+        Assertions.assertEquals(fresh.zobristKey(), game.getBoard().zobristKey());
+    }
+
+    @Test
+    @DisplayName("Side to Move and En Passant Change the Key")
+    public void stateChangesKey() throws InvalidMoveException {
+        ChessGame white = new ChessGame();
+        ChessGame black = new ChessGame();
+        black.setTeamTurn(ChessGame.TeamColor.BLACK);
+        Assertions.assertNotEquals(white.zobristKey(), black.zobristKey());
+
+        ChessGame doublePush = new ChessGame();
+        doublePush.makeMove(new ChessMove(new ChessPosition(2, 1), new ChessPosition(4, 1), null));
+        ChessGame noEnPassant = new ChessGame();
+        noEnPassant.getBoard().addPiece(new ChessPosition(2, 1), null);
+        noEnPassant.getBoard().addPiece(new ChessPosition(4, 1),
+                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        noEnPassant.setTeamTurn(ChessGame.TeamColor.BLACK);
+        Assertions.assertEquals(doublePush.getBoard(), noEnPassant.getBoard());
+        Assertions.assertNotEquals(doublePush.zobristKey(), noEnPassant.zobristKey());
+    }
+
+    @Test
+    @DisplayName("Castling Rights and En Passant Are Part of the Game State")
+    public void castlingAndEnPassantState() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        Assertions.assertEquals(20, game.enPassantSquare());
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        Assertions.assertEquals(44, game.enPassantSquare());
+        game.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(2, 5), null));
+        Assertions.assertEquals(-1, game.enPassantSquare());
+        game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(1, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+
+        Assertions.assertEquals(ChessGame.BLACK_KINGSIDE | ChessGame.BLACK_QUEENSIDE, game.castlingRights());
+        ChessGame samePlacement = new ChessGame();
+        samePlacement.setBoard(game.getBoard().copy());
+        Assertions.assertEquals(ChessGame.ALL_CASTLING, samePlacement.castlingRights());
+        Assertions.assertNotEquals(samePlacement, game);
+        Assertions.assertNotEquals(samePlacement.zobristKey(), game.zobristKey());
+
+        samePlacement.setCastlingRights(game.castlingRights());
+        Assertions.assertEquals(samePlacement, game);
+        Assertions.assertEquals(samePlacement.hashCode(), game.hashCode());
+    }
+}